@@ -19,7 +19,7 @@ public class VertxServletInputStream extends ServletInputStream {
 
     @Override
     public boolean isFinished() {
-        return false;
+        return this.byteArrayInputStream.available() == 0;
     }
 
     @Override
@@ -29,7 +29,15 @@ public class VertxServletInputStream extends ServletInputStream {
 
     @Override
     public void setReadListener(ReadListener readListener) {
-
+        // whole body is already in memory
+        try {
+            if (!isFinished()) {
+                readListener.onDataAvailable();
+            }
+            readListener.onAllDataRead();
+        } catch (IOException e) {
+            readListener.onError(e);
+        }
     }
 
     @Override
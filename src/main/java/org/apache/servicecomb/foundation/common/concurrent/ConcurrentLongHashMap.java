@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.servicecomb.foundation.common.concurrent;
+
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * lock free map keyed by primitive long, no boxing and no node allocation in normal case
+ *
+ * designed for in-flight requests keyed by msgId:
+ * 1.keys are unique, put never replace old value
+ * 2.keys are almost sequential, so "key & mask" rarely conflict
+ *
+ * open addressing with limited probes, only if all probed slots are occupied, fallback to a ConcurrentHashMap
+ */
+public class ConcurrentLongHashMap<V> {
+  public interface EntryConsumer<V> {
+    void accept(long key, V value);
+  }
+
+  private static final int MAX_PROBES = 8;
+
+  // slot is taken, but key is not published yet
+  private static final Object RESERVED = new Object();
+
+  private final int mask;
+
+  private final AtomicLongArray keys;
+
+  private final AtomicReferenceArray<Object> values;
+
+  private final Map<Long, V> overflow = new ConcurrentHashMap<>();
+
+  private final AtomicInteger size = new AtomicInteger();
+
+  public ConcurrentLongHashMap(int capacity) {
+    int tableSize = Integer.highestOneBit(Math.max(capacity, MAX_PROBES) - 1) << 1;
+    this.mask = tableSize - 1;
+    this.keys = new AtomicLongArray(tableSize);
+    this.values = new AtomicReferenceArray<>(tableSize);
+  }
+
+  public int size() {
+    return size.get();
+  }
+
+  public boolean isEmpty() {
+    return size.get() == 0;
+  }
+
+  private int index(long key) {
+    return (int) (key ^ (key >>> 32)) & mask;
+  }
+
+  public void put(long key, V value) {
+    int idx = index(key);
+    for (int probe = 0; probe < MAX_PROBES; probe++) {
+      int slot = (idx + probe) & mask;
+      if (values.get(slot) == null && values.compareAndSet(slot, null, RESERVED)) {
+        // key must be set before value, so that readers who see the value can see the right key
+        keys.set(slot, key);
+        values.set(slot, value);
+        size.incrementAndGet();
+        return;
+      }
+    }
+
+    overflow.put(key, value);
+    size.incrementAndGet();
+  }
+
+  @SuppressWarnings("unchecked")
+  public V get(long key) {
+    int idx = index(key);
+    for (int probe = 0; probe < MAX_PROBES; probe++) {
+      int slot = (idx + probe) & mask;
+      Object value = findInSlot(slot, key);
+      if (value != null) {
+        return (V) value;
+      }
+    }
+
+    return overflow.isEmpty() ? null : overflow.get(key);
+  }
+
+  @SuppressWarnings("unchecked")
+  public V remove(long key) {
+    int idx = index(key);
+    for (int probe = 0; probe < MAX_PROBES; probe++) {
+      int slot = (idx + probe) & mask;
+      Object value = findInSlot(slot, key);
+      if (value != null && values.compareAndSet(slot, value, null)) {
+        size.decrementAndGet();
+        return (V) value;
+      }
+    }
+
+    if (overflow.isEmpty()) {
+      return null;
+    }
+    V value = overflow.remove(key);
+    if (value != null) {
+      size.decrementAndGet();
+    }
+    return value;
+  }
+
+  // slot maybe reused by another key concurrently, so must check value again after read key
+  private Object findInSlot(int slot, long key) {
+    for (; ; ) {
+      Object value = values.get(slot);
+      if (value == null || value == RESERVED) {
+        return null;
+      }
+
+      if (keys.get(slot) != key) {
+        return null;
+      }
+
+      if (values.get(slot) == value) {
+        return value;
+      }
+    }
+  }
+
+  /**
+   * weakly consistent, entries put or removed concurrently maybe visited or not
+   */
+  @SuppressWarnings("unchecked")
+  public void forEach(EntryConsumer<V> consumer) {
+    for (int slot = 0; slot <= mask; slot++) {
+      Object value = values.get(slot);
+      if (value == null || value == RESERVED) {
+        continue;
+      }
+
+      long key = keys.get(slot);
+      if (values.get(slot) == value) {
+        consumer.accept(key, (V) value);
+      }
+    }
+
+    for (Entry<Long, V> entry : overflow.entrySet()) {
+      consumer.accept(entry.getKey(), entry.getValue());
+    }
+  }
+
+  /**
+   * remove all entries, consumer only receive entries removed by this invocation
+   */
+  @SuppressWarnings("unchecked")
+  public void removeAll(EntryConsumer<V> consumer) {
+    for (int slot = 0; slot <= mask; slot++) {
+      Object value = values.get(slot);
+      if (value == null || value == RESERVED) {
+        continue;
+      }
+
+      long key = keys.get(slot);
+      if (values.compareAndSet(slot, value, null)) {
+        size.decrementAndGet();
+        consumer.accept(key, (V) value);
+      }
+    }
+
+    for (Long key : overflow.keySet()) {
+      V value = overflow.remove(key);
+      if (value != null) {
+        size.decrementAndGet();
+        consumer.accept(key, value);
+      }
+    }
+  }
+}
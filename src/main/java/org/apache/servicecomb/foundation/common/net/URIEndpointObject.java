@@ -37,10 +37,15 @@ public class URIEndpointObject extends IpPort {
 
   private static final String HTTP2 = "http2";
 
+  // path of unix domain socket, host and port are still required, used to identify the endpoint
+  private static final String DOMAIN_SOCKET_KEY = "domainSocket";
+
   private boolean sslEnabled;
 
   private boolean http2Enabled;
 
+  private String domainSocketPath;
+
   private Map<String, List<String>> querys;
 
   public URIEndpointObject(String endpoint) {
@@ -57,6 +62,7 @@ public class URIEndpointObject extends IpPort {
     if (httpversion != null && httpversion.equals(HTTP2)) {
       http2Enabled = true;
     }
+    domainSocketPath = getFirst(DOMAIN_SOCKET_KEY);
   }
 
   public static Map<String, List<String>> splitQuery(URI uri) {
@@ -79,6 +85,14 @@ public class URIEndpointObject extends IpPort {
     return http2Enabled;
   }
 
+  public boolean isDomainSocket() {
+    return domainSocketPath != null && !domainSocketPath.isEmpty();
+  }
+
+  public String getDomainSocketPath() {
+    return domainSocketPath;
+  }
+
   public List<String> getQuery(String key) {
     return querys.get(key);
   }
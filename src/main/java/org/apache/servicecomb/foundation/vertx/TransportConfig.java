@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.servicecomb.foundation.vertx;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.netflix.config.DynamicPropertyFactory;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
+import io.vertx.core.impl.VertxInternal;
+import io.vertx.core.net.NetServerOptions;
+import io.vertx.core.net.TCPSSLOptions;
+
+/**
+ * socket options shared by all servers and clients created by this library
+ * only configured items override the options, so options set by code still work if not configured
+ */
+public final class TransportConfig {
+  private static final Logger LOGGER = LoggerFactory.getLogger(TransportConfig.class);
+
+  private static final String PREFIX = "vertx.transport.";
+
+  // use epoll/kqueue when available, vertx fallback to jdk nio automatically
+  public static final String PREFER_NATIVE = PREFIX + "preferNative";
+
+  // only works with native transport
+  public static final String REUSE_PORT = PREFIX + "reusePort";
+
+  // only works with native transport
+  public static final String TCP_FAST_OPEN = PREFIX + "tcpFastOpen";
+
+  // only works with native transport
+  public static final String TCP_QUICK_ACK = PREFIX + "tcpQuickAck";
+
+  public static final String TCP_NO_DELAY = PREFIX + "tcpNoDelay";
+
+  public static final String SEND_BUFFER_SIZE = PREFIX + "sendBufferSize";
+
+  public static final String RECEIVE_BUFFER_SIZE = PREFIX + "receiveBufferSize";
+
+  // only for servers
+  public static final String ACCEPT_BACKLOG = PREFIX + "acceptBacklog";
+
+  private TransportConfig() {
+  }
+
+  public static void configureVertxOptions(VertxOptions vertxOptions) {
+    String value = getProperty(PREFER_NATIVE);
+    vertxOptions.setPreferNativeTransport(value == null || Boolean.parseBoolean(value));
+  }
+
+  public static <T extends TCPSSLOptions> T configureTcpOptions(T options) {
+    String value = getProperty(REUSE_PORT);
+    if (value != null) {
+      options.setReusePort(Boolean.parseBoolean(value));
+    }
+    value = getProperty(TCP_FAST_OPEN);
+    if (value != null) {
+      options.setTcpFastOpen(Boolean.parseBoolean(value));
+    }
+    value = getProperty(TCP_QUICK_ACK);
+    if (value != null) {
+      options.setTcpQuickAck(Boolean.parseBoolean(value));
+    }
+    value = getProperty(TCP_NO_DELAY);
+    if (value != null) {
+      options.setTcpNoDelay(Boolean.parseBoolean(value));
+    }
+    int size = getPositiveIntProperty(SEND_BUFFER_SIZE);
+    if (size > 0) {
+      options.setSendBufferSize(size);
+    }
+    size = getPositiveIntProperty(RECEIVE_BUFFER_SIZE);
+    if (size > 0) {
+      options.setReceiveBufferSize(size);
+    }
+    // HttpServerOptions is NetServerOptions too
+    if (options instanceof NetServerOptions) {
+      size = getPositiveIntProperty(ACCEPT_BACKLOG);
+      if (size > 0) {
+        ((NetServerOptions) options).setAcceptBacklog(size);
+      }
+    }
+    return options;
+  }
+
+  /**
+   * @return epoll, kqueue or nio
+   */
+  public static String getActiveTransport(Vertx vertx) {
+    if (!vertx.isNativeTransportEnabled() || !(vertx instanceof VertxInternal)) {
+      return "nio";
+    }
+
+    String name = ((VertxInternal) vertx).transport().getClass().getSimpleName();
+    if (name.endsWith("Transport")) {
+      name = name.substring(0, name.length() - "Transport".length());
+    }
+    return name.toLowerCase();
+  }
+
+  private static String getProperty(String key) {
+    String value = DynamicPropertyFactory.getInstance().getStringProperty(key, null).get();
+    if (value == null || value.trim().isEmpty()) {
+      return null;
+    }
+    return value.trim();
+  }
+
+  private static int getPositiveIntProperty(String key) {
+    String value = getProperty(key);
+    if (value == null) {
+      return -1;
+    }
+
+    try {
+      int result = Integer.parseInt(value);
+      if (result <= 0) {
+        LOGGER.warn("Transport key:{}'s value:{} is not positive, please check!", key, value);
+      }
+      return result;
+    } catch (NumberFormatException e) {
+      LOGGER.warn("Transport key:{}'s value:{} is not a number, please check!", key, value);
+      return -1;
+    }
+  }
+}
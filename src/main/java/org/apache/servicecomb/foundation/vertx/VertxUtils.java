@@ -135,7 +135,9 @@ public final class VertxUtils {
     }
 
     configureVertxFileCaching(vertxOptions);
+    TransportConfig.configureVertxOptions(vertxOptions);
     Vertx vertx = Vertx.vertx(vertxOptions);
+    LOGGER.info("vertx {} created, transport={}.", name, TransportConfig.getActiveTransport(vertx));
     enhanceVertx(name, vertx);
     return vertx;
   }
@@ -184,7 +186,8 @@ public final class VertxUtils {
   }
 
   public static byte[] getBytesFast(ByteBuf byteBuf) {
-    if (byteBuf.hasArray()) {
+    // shared array of a slice has offset, can not be used directly
+    if (byteBuf.hasArray() && byteBuf.arrayOffset() == 0) {
       return byteBuf.array();
     }
 
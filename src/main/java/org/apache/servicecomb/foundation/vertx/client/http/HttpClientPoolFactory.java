@@ -17,6 +17,7 @@
 
 package org.apache.servicecomb.foundation.vertx.client.http;
 
+import org.apache.servicecomb.foundation.vertx.TransportConfig;
 import org.apache.servicecomb.foundation.vertx.client.ClientPoolFactory;
 
 import io.vertx.core.Context;
@@ -28,7 +29,7 @@ public class HttpClientPoolFactory implements ClientPoolFactory<HttpClientWithCo
   private HttpClientOptions httpClientOptions;
 
   public HttpClientPoolFactory(HttpClientOptions httpClientOptions) {
-    this.httpClientOptions = httpClientOptions;
+    this.httpClientOptions = TransportConfig.configureTcpOptions(httpClientOptions);
   }
 
   @Override
@@ -17,12 +17,21 @@
 
 package org.apache.servicecomb.foundation.vertx.client.tcp;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
 
 import org.apache.servicecomb.foundation.common.concurrent.ConcurrentHashMapEx;
+import org.apache.servicecomb.foundation.common.net.URIEndpointObject;
+import org.apache.servicecomb.foundation.vertx.timer.TimingWheel;
 
+import io.vertx.core.AsyncResult;
+import io.vertx.core.CompositeFuture;
 import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Promise;
 
 public abstract class AbstractTcpClientConnectionPool<T extends TcpClientConnection> {
   // 是在哪个context中创建的
@@ -31,7 +40,10 @@ public abstract class AbstractTcpClientConnectionPool<T extends TcpClientConnect
   protected NetClientWrapper netClientWrapper;
 
   // key为address
-  protected Map<String, T> tcpClientMap = new ConcurrentHashMapEx<>();
+  protected Map<String, TcpClientConnectionGroup<T>> groupMap = new ConcurrentHashMapEx<>();
+
+  // request timeout of all connections in this pool
+  protected TimingWheel timingWheel;
 
   public AbstractTcpClientConnectionPool(Context context,
       NetClientWrapper netClientWrapper) {
@@ -39,20 +51,67 @@ public abstract class AbstractTcpClientConnectionPool<T extends TcpClientConnect
     this.netClientWrapper = netClientWrapper;
 
     startCheckTimeout(context);
+    startReapIdle(context);
   }
 
   protected void startCheckTimeout(Context context) {
-    context.owner().setPeriodic(TimeUnit.SECONDS.toMillis(1), this::onCheckTimeout);
+    TcpClientConfig clientConfig = netClientWrapper.getClientConfig(false);
+    timingWheel = new TimingWheel(context, clientConfig.getMsTimeoutTick(), clientConfig.getTimeoutWheelSize());
+    timingWheel.start();
   }
 
-  private void onCheckTimeout(Long event) {
-    for (TcpClientConnection client : tcpClientMap.values()) {
-      client.checkTimeout();
-    }
+  protected void startReapIdle(Context context) {
+    long msIdleTimeout = netClientWrapper.getClientConfig(false).getMsConnectionIdleTimeout();
+    context.runOnContext(v -> {
+      context.owner().setPeriodic(Math.max(msIdleTimeout / 2, 1), timerId -> {
+        for (TcpClientConnectionGroup<T> group : groupMap.values()) {
+          group.reapIdle(msIdleTimeout);
+        }
+      });
+    });
   }
 
   public T findOrCreateClient(String endpoint) {
-    return tcpClientMap.computeIfAbsent(endpoint, this::create);
+    return findOrCreateGroup(endpoint).select();
+  }
+
+  public TcpClientConnectionGroup<T> findOrCreateGroup(String endpoint) {
+    return groupMap.computeIfAbsent(endpoint, this::createGroup);
+  }
+
+  /**
+   * connect and login to endpoints before traffic arrives, connections will reconnect automatically after that
+   * handler is invoked when all connections finished, failed if any of them failed
+   */
+  @SuppressWarnings("rawtypes")
+  public void preConnect(Collection<String> endpoints, Handler<AsyncResult<Void>> handler) {
+    List<Future> futures = new ArrayList<>();
+    for (String endpoint : endpoints) {
+      for (T connection : findOrCreateGroup(endpoint).getConnections()) {
+        Promise<Void> promise = Promise.promise();
+        connection.preConnect(promise);
+        futures.add(promise.future());
+      }
+    }
+
+    CompositeFuture.all(futures).setHandler(ar -> {
+      handler.handle(ar.succeeded() ? Future.succeededFuture() : Future.failedFuture(ar.cause()));
+    });
+  }
+
+  private TcpClientConnectionGroup<T> createGroup(String endpoint) {
+    TcpClientConfig clientConfig = netClientWrapper.getClientConfig(new URIEndpointObject(endpoint).isSslEnabled());
+    TcpClientConnectionGroup<T> group = new TcpClientConnectionGroup<>(endpoint, clientConfig, this::createClient);
+    if (group.getConnections().size() > 1) {
+      context.runOnContext(v -> group.warmUp());
+    }
+    return group;
+  }
+
+  private T createClient(String endpoint) {
+    T client = create(endpoint);
+    client.setTimingWheel(timingWheel);
+    return client;
   }
 
   protected abstract T create(String endpoint);
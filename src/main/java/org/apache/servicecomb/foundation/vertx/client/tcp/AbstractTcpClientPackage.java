@@ -17,10 +17,19 @@
 package org.apache.servicecomb.foundation.vertx.client.tcp;
 
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
 
 import org.apache.servicecomb.foundation.vertx.tcp.TcpOutputStream;
+import org.apache.servicecomb.foundation.vertx.tcp.header.TcpHeaderEncoder;
+
+import io.netty.buffer.ByteBufAllocator;
 
 public abstract class AbstractTcpClientPackage {
+  // per connection msgId is not less than this, global msgId is less than this, so they never conflict
+  public static final long MIN_CONNECTION_MSG_ID = 1L << 62;
+
+  private static final long UNBOUND_MSG_ID = -1;
+
   private static AtomicLong reqId = new AtomicLong();
 
   public static long getAndIncRequestId() {
@@ -29,14 +38,50 @@ public abstract class AbstractTcpClientPackage {
 
   private long msRequestTimeout;
 
+  // bound by connection when send, null if header table not negotiated
+  private TcpHeaderEncoder headerEncoder;
+
   private long finishWriteToBuffer;
 
-  protected long msgId = getAndIncRequestId();
+  // bound by connection when send, so that senders not contend on the global reqId
+  protected long msgId = UNBOUND_MSG_ID;
 
+  // connection that generated msgId, null if msgId is global or unbound
+  protected Object msgIdOwner;
+
+  /**
+   * if not bound to a connection yet, use a global msgId
+   */
   public long getMsgId() {
+    if (msgId == UNBOUND_MSG_ID) {
+      msgId = getAndIncRequestId();
+    }
+    return msgId;
+  }
+
+  /**
+   * invoked by connection when send, not change msgId if already bound to the same connection
+   * when retried or sent by another connection, msgId of the old connection maybe conflict, so rebind it
+   */
+  public long bindMsgId(Object owner, LongSupplier msgIdGenerator) {
+    if (msgIdOwner != owner || msgId == UNBOUND_MSG_ID) {
+      msgId = msgIdGenerator.getAsLong();
+      msgIdOwner = owner;
+    }
     return msgId;
   }
 
+  /**
+   * createStream should encode header by it if not null
+   */
+  public TcpHeaderEncoder getHeaderEncoder() {
+    return headerEncoder;
+  }
+
+  public void bindHeaderEncoder(TcpHeaderEncoder headerEncoder) {
+    this.headerEncoder = headerEncoder;
+  }
+
   public long getMsRequestTimeout() {
     return msRequestTimeout;
   }
@@ -53,5 +98,25 @@ public abstract class AbstractTcpClientPackage {
     this.finishWriteToBuffer = System.nanoTime();
   }
 
+  /**
+   * expected size after encoded, include tcp header
+   * used as initial capacity of pooled buffer, 0 means unknown
+   */
+  public int getSizeHint() {
+    return 0;
+  }
+
+  /**
+   * msgId in the stream will be replaced by getMsgId() when send, so can be created with any msgId
+   */
   public abstract TcpOutputStream createStream();
+
+  /**
+   * used when TcpClientConfig.pooledBuffer is enabled
+   * default not support allocator, just create a normal stream
+   * override it and create by new TcpOutputStream(msgId, allocator, getSizeHint()) to avoid garbage
+   */
+  public TcpOutputStream createStream(ByteBufAllocator allocator) {
+    return createStream();
+  }
 }
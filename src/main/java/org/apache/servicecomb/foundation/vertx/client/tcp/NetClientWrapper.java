@@ -16,11 +16,14 @@
  */
 package org.apache.servicecomb.foundation.vertx.client.tcp;
 
+import org.apache.servicecomb.foundation.vertx.TransportConfig;
+
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
 import io.vertx.core.net.NetClient;
 import io.vertx.core.net.NetSocket;
+import io.vertx.core.net.SocketAddress;
 
 // netClient do not like httpClient
 // can not support normal and ssl by the same instance
@@ -35,10 +38,10 @@ public class NetClientWrapper {
   private NetClient sslNetClient;
 
   public NetClientWrapper(Vertx vertx, TcpClientConfig normalClientConfig, TcpClientConfig sslClientConfig) {
-    this.normalClientConfig = normalClientConfig;
+    this.normalClientConfig = TransportConfig.configureTcpOptions(normalClientConfig);
     this.normalNetClient = vertx.createNetClient(normalClientConfig);
 
-    this.sslClientConfig = sslClientConfig;
+    this.sslClientConfig = TransportConfig.configureTcpOptions(sslClientConfig);
     this.sslNetClient = vertx.createNetClient(sslClientConfig);
   }
 
@@ -58,4 +61,14 @@ public class NetClientWrapper {
 
     normalNetClient.connect(port, host, connectHandler);
   }
+
+  // unix domain socket, only works when vertx native transport enabled
+  public void connect(boolean ssl, SocketAddress remoteAddress, Handler<AsyncResult<NetSocket>> connectHandler) {
+    if (ssl) {
+      sslNetClient.connect(remoteAddress, connectHandler);
+      return;
+    }
+
+    normalNetClient.connect(remoteAddress, connectHandler);
+  }
 }
@@ -17,13 +17,87 @@
 
 package org.apache.servicecomb.foundation.vertx.client.tcp;
 
+import org.apache.servicecomb.foundation.vertx.tcp.TcpConnection;
+import org.apache.servicecomb.foundation.vertx.tcp.TcpInboundStreams;
+import org.apache.servicecomb.foundation.vertx.tcp.TcpReadConfig;
+import org.apache.servicecomb.foundation.vertx.tcp.TcpWriteConfig;
+import org.apache.servicecomb.foundation.vertx.timer.TimingWheel;
+
 import io.vertx.core.net.NetClientOptions;
 
 public class TcpClientConfig extends NetClientOptions {
   public static final int DEFAULT_LOGIN_TIMEOUT = 30000;
 
+  public static final int DEFAULT_REQUEST_TABLE_CAPACITY = 1024;
+
+  public static final int DEFAULT_CONNECTION_GROW_THRESHOLD = 128;
+
+  public static final long DEFAULT_MS_CONNECTION_IDLE_TIMEOUT = 60000;
+
+  public static final int DEFAULT_HEARTBEAT_MISS_THRESHOLD = 3;
+
+  public static final long DEFAULT_MS_RECONNECT_INITIAL_DELAY = 100;
+
+  public static final long DEFAULT_MS_RECONNECT_MAX_DELAY = 30000;
+
   private long msLoginTimeout;
 
+  // encode package by PooledByteBufAllocator direct buffer
+  // only packages encoded when send use it, eg: TcpClientPackage created by encoder, but not by an encoded stream
+  private boolean pooledBuffer;
+
+  private TcpWriteConfig writeConfig = new TcpWriteConfig();
+
+  // slots of in-flight request table of one connection
+  // more in-flight requests are still supported, but slower
+  private int requestTableCapacity = DEFAULT_REQUEST_TABLE_CAPACITY;
+
+  // precision of request timeout
+  private long msTimeoutTick = TimingWheel.DEFAULT_MS_TICK;
+
+  private int timeoutWheelSize = TimingWheel.DEFAULT_WHEEL_SIZE;
+
+  // can be override by endpoint query "connections" and "maxConnections"
+  private int connectionsPerEndpoint = 1;
+
+  private int maxConnectionsPerEndpoint = 1;
+
+  // add connection when waiting requests of all connections reach this
+  private int connectionGrowThreshold = DEFAULT_CONNECTION_GROW_THRESHOLD;
+
+  // connections more than connectionsPerEndpoint will be closed after idle for this time
+  private long msConnectionIdleTimeout = DEFAULT_MS_CONNECTION_IDLE_TIMEOUT;
+
+  // compression supported by client, separated by ",", ordered by priority, eg: snappy,deflate
+  // negotiated in login, so only works when both sides support login
+  private String zipNames;
+
+  private int zipMinSize = TcpConnection.DEFAULT_ZIP_MIN_SIZE;
+
+  // header table size offered in login, 0 means not use TcpHeaderEncoder
+  // packages must encode header by AbstractTcpClientPackage.getHeaderEncoder when enabled
+  private int headerTableSize;
+
+  // max chunks buffered for each streaming response before pause the connection
+  private int streamBufferedChunks = TcpInboundStreams.DEFAULT_MAX_BUFFERED_CHUNKS;
+
+  private TcpReadConfig readConfig = new TcpReadConfig();
+
+  // 0 means not send heartbeat, negotiated in login, not send if server not support it or no login
+  private long msHeartbeatInterval;
+
+  // after missed so many heartbeats continuously, connection is unhealthy, and will reconnect
+  private int heartbeatMissThreshold = DEFAULT_HEARTBEAT_MISS_THRESHOLD;
+
+  // reconnect backoff: initial * multiplier^(failures - 1), limited by max, and randomized by +-jitter
+  private long msReconnectInitialDelay = DEFAULT_MS_RECONNECT_INITIAL_DELAY;
+
+  private long msReconnectMaxDelay = DEFAULT_MS_RECONNECT_MAX_DELAY;
+
+  private double reconnectMultiplier = 2;
+
+  private double reconnectJitter = 0.2;
+
   public TcpClientConfig() {
     msLoginTimeout = DEFAULT_LOGIN_TIMEOUT;
   }
@@ -35,4 +109,164 @@ public class TcpClientConfig extends NetClientOptions {
   public void setMsLoginTimeout(long msLoginTimeout) {
     this.msLoginTimeout = msLoginTimeout;
   }
+
+  public boolean isPooledBuffer() {
+    return pooledBuffer;
+  }
+
+  public void setPooledBuffer(boolean pooledBuffer) {
+    this.pooledBuffer = pooledBuffer;
+  }
+
+  public TcpWriteConfig getWriteConfig() {
+    return writeConfig;
+  }
+
+  public void setWriteConfig(TcpWriteConfig writeConfig) {
+    this.writeConfig = writeConfig;
+  }
+
+  public int getRequestTableCapacity() {
+    return requestTableCapacity;
+  }
+
+  public void setRequestTableCapacity(int requestTableCapacity) {
+    this.requestTableCapacity = requestTableCapacity;
+  }
+
+  public long getMsTimeoutTick() {
+    return msTimeoutTick;
+  }
+
+  public void setMsTimeoutTick(long msTimeoutTick) {
+    this.msTimeoutTick = msTimeoutTick;
+  }
+
+  public int getTimeoutWheelSize() {
+    return timeoutWheelSize;
+  }
+
+  public void setTimeoutWheelSize(int timeoutWheelSize) {
+    this.timeoutWheelSize = timeoutWheelSize;
+  }
+
+  public int getConnectionsPerEndpoint() {
+    return connectionsPerEndpoint;
+  }
+
+  public void setConnectionsPerEndpoint(int connectionsPerEndpoint) {
+    this.connectionsPerEndpoint = connectionsPerEndpoint;
+  }
+
+  public int getMaxConnectionsPerEndpoint() {
+    return maxConnectionsPerEndpoint;
+  }
+
+  public void setMaxConnectionsPerEndpoint(int maxConnectionsPerEndpoint) {
+    this.maxConnectionsPerEndpoint = maxConnectionsPerEndpoint;
+  }
+
+  public int getConnectionGrowThreshold() {
+    return connectionGrowThreshold;
+  }
+
+  public void setConnectionGrowThreshold(int connectionGrowThreshold) {
+    this.connectionGrowThreshold = connectionGrowThreshold;
+  }
+
+  public long getMsConnectionIdleTimeout() {
+    return msConnectionIdleTimeout;
+  }
+
+  public void setMsConnectionIdleTimeout(long msConnectionIdleTimeout) {
+    this.msConnectionIdleTimeout = msConnectionIdleTimeout;
+  }
+
+  public String getZipNames() {
+    return zipNames;
+  }
+
+  public void setZipNames(String zipNames) {
+    this.zipNames = zipNames;
+  }
+
+  public int getZipMinSize() {
+    return zipMinSize;
+  }
+
+  public void setZipMinSize(int zipMinSize) {
+    this.zipMinSize = zipMinSize;
+  }
+
+  public int getHeaderTableSize() {
+    return headerTableSize;
+  }
+
+  public void setHeaderTableSize(int headerTableSize) {
+    this.headerTableSize = headerTableSize;
+  }
+
+  public int getStreamBufferedChunks() {
+    return streamBufferedChunks;
+  }
+
+  public void setStreamBufferedChunks(int streamBufferedChunks) {
+    this.streamBufferedChunks = streamBufferedChunks;
+  }
+
+  public TcpReadConfig getReadConfig() {
+    return readConfig;
+  }
+
+  public void setReadConfig(TcpReadConfig readConfig) {
+    this.readConfig = readConfig;
+  }
+
+  public long getMsHeartbeatInterval() {
+    return msHeartbeatInterval;
+  }
+
+  public void setMsHeartbeatInterval(long msHeartbeatInterval) {
+    this.msHeartbeatInterval = msHeartbeatInterval;
+  }
+
+  public int getHeartbeatMissThreshold() {
+    return heartbeatMissThreshold;
+  }
+
+  public void setHeartbeatMissThreshold(int heartbeatMissThreshold) {
+    this.heartbeatMissThreshold = heartbeatMissThreshold;
+  }
+
+  public long getMsReconnectInitialDelay() {
+    return msReconnectInitialDelay;
+  }
+
+  public void setMsReconnectInitialDelay(long msReconnectInitialDelay) {
+    this.msReconnectInitialDelay = msReconnectInitialDelay;
+  }
+
+  public long getMsReconnectMaxDelay() {
+    return msReconnectMaxDelay;
+  }
+
+  public void setMsReconnectMaxDelay(long msReconnectMaxDelay) {
+    this.msReconnectMaxDelay = msReconnectMaxDelay;
+  }
+
+  public double getReconnectMultiplier() {
+    return reconnectMultiplier;
+  }
+
+  public void setReconnectMultiplier(double reconnectMultiplier) {
+    this.reconnectMultiplier = reconnectMultiplier;
+  }
+
+  public double getReconnectJitter() {
+    return reconnectJitter;
+  }
+
+  public void setReconnectJitter(double reconnectJitter) {
+    this.reconnectJitter = reconnectJitter;
+  }
 }
@@ -19,32 +19,50 @@ package org.apache.servicecomb.foundation.vertx.client.tcp;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
-import java.util.Map;
-import java.util.Map.Entry;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Queue;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.apache.servicecomb.foundation.common.concurrent.ConcurrentLongHashMap;
 import org.apache.servicecomb.foundation.common.net.URIEndpointObject;
 import org.apache.servicecomb.foundation.vertx.server.TcpParser;
 import org.apache.servicecomb.foundation.vertx.tcp.TcpConnection;
 import org.apache.servicecomb.foundation.vertx.tcp.TcpConst;
+import org.apache.servicecomb.foundation.vertx.tcp.TcpInboundStreams;
+import org.apache.servicecomb.foundation.vertx.tcp.TcpOutboundStream;
 import org.apache.servicecomb.foundation.vertx.tcp.TcpOutputStream;
+import org.apache.servicecomb.foundation.vertx.timer.TimingWheel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.annotations.VisibleForTesting;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.net.NetSocket;
+import io.vertx.core.net.SocketAddress;
 import io.vertx.core.net.impl.NetSocketImpl;
+import io.vertx.core.streams.ReadStream;
 
 public class TcpClientConnection extends TcpConnection {
   private static final Logger LOGGER = LoggerFactory.getLogger(TcpClientConnection.class);
 
+  // heartbeat is processed by this connection, streaming reply can not be relayed
+  private static final int RAW_REPLY_EXCLUDED_FLAGS = TcpConst.FLAG_HEARTBEAT | TcpConst.FLAG_HEARTBEAT_ACK
+      | TcpConst.FLAG_STREAM | TcpConst.FLAG_STREAM_CHUNK;
+
   enum Status {
     CONNECTING,
     DISCONNECTED,
@@ -71,7 +89,52 @@ public class TcpClientConnection extends TcpConnection {
   // so can only save package, can not save byteBuf
   private Queue<AbstractTcpClientPackage> packageQueue = new ConcurrentLinkedQueue<>();
 
-  private volatile Map<Long, TcpRequest> requestMap = new ConcurrentHashMap<>();
+  // key is msgId
+  private final ConcurrentLongHashMap<TcpRequest> requestMap;
+
+  // set by first relay, so normal replies not look up requestMap twice
+  private volatile boolean relayUsed;
+
+  private TcpParser parser;
+
+  // streaming responses
+  private TcpInboundStreams inboundStreams;
+
+  // if not null, request timeout is checked by it, otherwise must invoke checkTimeout periodically
+  private TimingWheel timingWheel;
+
+  private volatile long lastSendTime = System.currentTimeMillis();
+
+  // msgId only need to be unique in a connection, wrap to MIN_CONNECTION_MSG_ID after Long.MAX_VALUE
+  private final AtomicLong msgIdSequence = new AtomicLong(AbstractTcpClientPackage.MIN_CONNECTION_MSG_ID);
+
+  // heartbeat, only access in context thread except volatile fields
+  private long heartbeatTimerId = -1;
+
+  private int missedHeartbeats;
+
+  private boolean reconnectOnClosed;
+
+  // reconnect state, only access in context thread except volatile fields
+  private int connectFailures;
+
+  // millis, fail fast before this when disconnected
+  private volatile long nextConnectTime;
+
+  // reconnect automatically after closed or connect failed, eg: pre-connected
+  private boolean keepConnected;
+
+  private long reconnectTimerId = -1;
+
+  // closed by owner, eg: reaped by TcpClientConnectionGroup, never connect again
+  private boolean closed;
+
+  private List<Handler<AsyncResult<Void>>> connectWaiters = new ArrayList<>();
+
+  private volatile boolean healthy = true;
+
+  // smoothed round trip time of heartbeat, nanoseconds, 0 means unknown
+  private volatile long rtt;
 
   public TcpClientConnection(Context context, NetClientWrapper netClientWrapper, String strEndpoint) {
     this.setContext(context);
@@ -81,6 +144,9 @@ public class TcpClientConnection extends TcpConnection {
     this.socketAddress = endpoint.getSocketAddress();
     this.remoteSupportLogin = Boolean.parseBoolean(endpoint.getFirst(TcpConst.LOGIN));
     this.clientConfig = netClientWrapper.getClientConfig(endpoint.isSslEnabled());
+    this.setWriteConfig(clientConfig.getWriteConfig());
+    this.setZipMinSize(clientConfig.getZipMinSize());
+    this.requestMap = new ConcurrentLongHashMap<>(clientConfig.getRequestTableCapacity());
   }
 
   public boolean isLocalSupportLogin() {
@@ -95,6 +161,58 @@ public class TcpClientConnection extends TcpConnection {
     this.localSupportLogin = localSupportLogin;
   }
 
+  public void setTimingWheel(TimingWheel timingWheel) {
+    this.timingWheel = timingWheel;
+  }
+
+  public int getWaitingRequestCount() {
+    return requestMap.size();
+  }
+
+  public long getLastSendTime() {
+    return lastSendTime;
+  }
+
+  /**
+   * false after heartbeats missed or connect failed, pool should route to other connections
+   */
+  public boolean isHealthy() {
+    return healthy;
+  }
+
+  /**
+   * smoothed heartbeat round trip time in nanoseconds, 0 if heartbeat not enabled or not got pong yet
+   */
+  public long getRtt() {
+    return rtt;
+  }
+
+  /**
+   * subclass should send it to server in login request, and invoke setZipName with server's choice in onLoginResponse
+   */
+  protected String getSupportedZipNames() {
+    return clientConfig.getZipNames();
+  }
+
+  /**
+   * subclass should send it to server in login request, and invoke setHeaderTableSize with server's choice
+   * in onLoginResponse, 0 means not support
+   */
+  protected int getSupportedHeaderTableSize() {
+    return clientConfig.getHeaderTableSize();
+  }
+
+  /**
+   * subclass should send it to server in login request, and invoke setControlFlags with server's choice
+   * in onLoginResponse, server never sends a control package not negotiated
+   */
+  protected int getSupportedControlFlags() {
+    if (clientConfig.getMsHeartbeatInterval() > 0) {
+      return TcpConst.FLAG_OVERLOADED | TcpConst.FLAG_HEARTBEAT;
+    }
+    return TcpConst.FLAG_OVERLOADED;
+  }
+
   protected TcpOutputStream createLogin() {
     return null;
   }
@@ -103,35 +221,248 @@ public class TcpClientConnection extends TcpConnection {
     return true;
   }
 
+  /**
+   * true when last connect failed and backoff delay not reached, send will fail fast
+   */
+  public boolean isInBackoff() {
+    return Status.DISCONNECTED.equals(status) && System.currentTimeMillis() < nextConnectTime;
+  }
+
+  private Throwable createBackoffException() {
+    return new IllegalStateException(
+        String.format("connect to %s failed %d times, wait %dms to reconnect.",
+            socketAddress,
+            connectFailures,
+            Math.max(0, nextConnectTime - System.currentTimeMillis())));
+  }
+
+  protected long nextMsgId() {
+    for (; ; ) {
+      long msgId = msgIdSequence.getAndIncrement();
+      if (msgId >= AbstractTcpClientPackage.MIN_CONNECTION_MSG_ID) {
+        return msgId;
+      }
+
+      // overflow to negative, only one thread can reset it
+      msgIdSequence.compareAndSet(msgId + 1, AbstractTcpClientPackage.MIN_CONNECTION_MSG_ID);
+    }
+  }
+
   public void send(AbstractTcpClientPackage tcpClientPackage, TcpResponseCallback callback) {
-    requestMap.put(tcpClientPackage.getMsgId(), new TcpRequest(tcpClientPackage.getMsRequestTimeout(), callback));
+    lastSendTime = System.currentTimeMillis();
+    if (isInBackoff()) {
+      callback.fail(createBackoffException());
+      return;
+    }
+    long msgId = tcpClientPackage.bindMsgId(this, this::nextMsgId);
+    addRequest(msgId, new TcpRequest(tcpClientPackage.getMsRequestTimeout(), callback));
 
     if (writeToBufferQueue(tcpClientPackage)) {
       return;
     }
 
     // before login success, no optimize, just make sure do not lost data
+    context.runOnContext(v -> sendInContext(tcpClientPackage));
+  }
+
+  private void sendInContext(AbstractTcpClientPackage tcpClientPackage) {
+    if (writeToBufferQueue(tcpClientPackage)) {
+      return;
+    }
+
+    if (isInBackoff()) {
+      onSendFailed(tcpClientPackage.getMsgId(), createBackoffException());
+      return;
+    }
+    if (closed) {
+      onSendFailed(tcpClientPackage.getMsgId(),
+          new IllegalStateException(String.format("connection to %s already closed.", socketAddress)));
+      return;
+    }
+    packageQueue.add(tcpClientPackage);
+
+    // connect must call in eventloop thread
+    // otherwise vertx will create a new eventloop thread for it if count
+    //   of eventloop thread is not up to the limit.
+    if (Status.DISCONNECTED.equals(status)) {
+      connect();
+    }
+  }
+
+  /**
+   * send packages by one write, callbacks.get(i) is for packages.get(i)
+   * all packages are encoded to one buffer in caller thread, that's cheaper for many small packages
+   */
+  public void send(List<? extends AbstractTcpClientPackage> packages, List<? extends TcpResponseCallback> callbacks) {
+    if (packages.size() != callbacks.size()) {
+      throw new IllegalArgumentException(
+          String.format("size of packages and callbacks not match, %d/%d.", packages.size(), callbacks.size()));
+    }
+
+    lastSendTime = System.currentTimeMillis();
+    if (isInBackoff()) {
+      Throwable cause = createBackoffException();
+      callbacks.forEach(callback -> callback.fail(cause));
+      return;
+    }
+
+    for (int idx = 0; idx < packages.size(); idx++) {
+      AbstractTcpClientPackage tcpClientPackage = packages.get(idx);
+      long msgId = tcpClientPackage.bindMsgId(this, this::nextMsgId);
+      addRequest(msgId, new TcpRequest(tcpClientPackage.getMsRequestTimeout(), callbacks.get(idx)));
+    }
+
+    if (Status.WORKING.equals(status)) {
+      writeBatch(packages);
+      return;
+    }
+
     context.runOnContext(v -> {
-      if (!writeToBufferQueue(tcpClientPackage)) {
-        packageQueue.add(tcpClientPackage);
+      for (AbstractTcpClientPackage tcpClientPackage : packages) {
+        sendInContext(tcpClientPackage);
       }
+    });
+  }
 
-      // connect must call in eventloop thread
-      // otherwise vertx will create a new eventloop thread for it if count
-      //   of eventloop thread is not up to the limit.
-      if (Status.DISCONNECTED.equals(status)) {
-        connect();
+  private void writeBatch(List<? extends AbstractTcpClientPackage> packages) {
+    // frames are composed without copy, and written by one gathering write
+    // composite holds no memory itself, pooled frames in it are released by netty after written, see writeToSocket
+    CompositeByteBuf batch = Unpooled.compositeBuffer(packages.size());
+    Runnable headerCommitter = null;
+    try {
+      for (AbstractTcpClientPackage tcpClientPackage : packages) {
+        try (TcpOutputStream os = createStream(tcpClientPackage)) {
+          if (os.getHeaderCommitter() != null) {
+            Runnable prev = headerCommitter;
+            Runnable current = os.getHeaderCommitter();
+            headerCommitter = prev == null ? current : () -> {
+              prev.run();
+              current.run();
+            };
+          }
+          // compress every package, not the whole batch
+          batch.addComponent(true, compressFrame(os.detachByteBuf()));
+        }
+      }
+    } catch (Throwable e) {
+      batch.release();
+      // all requests already registered, nothing of the batch is written
+      for (AbstractTcpClientPackage tcpClientPackage : packages) {
+        onSendFailed(tcpClientPackage.getMsgId(), e);
       }
+      return;
+    }
+
+    if (!writeBuffer(batch)) {
+      packages.forEach(this::onWriteRejected);
+      return;
+    }
+    commitHeaderAfterWrite(headerCommitter);
+    packages.forEach(AbstractTcpClientPackage::finishWriteToBuffer);
+  }
+
+  /**
+   * streaming request, body of tcpClientPackage is the first part, remain body is read from bodyStream
+   * server must support streaming message, and msRequestTimeout includes the whole upload
+   */
+  public void send(AbstractTcpClientPackage tcpClientPackage, ReadStream<Buffer> bodyStream,
+      TcpResponseCallback callback) {
+    long msgId = tcpClientPackage.bindMsgId(this, this::nextMsgId);
+    TcpOutboundStream outboundStream = new TcpOutboundStream(this, msgId, bodyStream);
+    outboundStream.setFailureHandler(e -> onSendFailed(msgId, e));
+
+    send(new TcpStreamClientPackage(tcpClientPackage, outboundStream), ar -> {
+      // server maybe reply before upload finished
+      outboundStream.stop();
+      callback.handle(ar);
     });
   }
 
+  /**
+   * forward a whole package without decode, only msgId in frame is replaced in place
+   * the reply is not decoded too, callback got it with the original msgId
+   *
+   * take over the ownership of frame
+   * compression and header table must not be negotiated on this connection
+   * streaming request is not supported, and connection should be connected by preConnect before relay
+   */
+  public void relay(ByteBuf frame, long msTimeout, TcpRelayCallback callback) {
+    lastSendTime = System.currentTimeMillis();
+    relayUsed = true;
+    if (!Status.WORKING.equals(status)) {
+      frame.release();
+      callback.onFail(isInBackoff() ? createBackoffException()
+          : new IllegalStateException(String.format("not connected, can not relay, address=%s", socketAddress)));
+      context.runOnContext(v -> connectIfDisconnected());
+      return;
+    }
+
+    int idx = frame.readerIndex() + TcpParser.MSG_ID_OFFSET;
+    long originalMsgId = frame.getLong(idx);
+    long msgId = nextMsgId();
+    frame.setLong(idx, msgId);
+    addRequest(msgId, new TcpRelayRequest(msTimeout, originalMsgId, callback));
+    if (!writeBuffer(frame)) {
+      onSendFailed(msgId, new IllegalStateException(
+          String.format("write queue is full, msgId=%d, address=%s", msgId, socketAddress)));
+    }
+  }
+
+  // in eventloop, only take relayed replies, others are decoded as normal
+  private boolean onRawReply(long msgId, int flags, ByteBuf frame) {
+    if (!relayUsed || (flags & RAW_REPLY_EXCLUDED_FLAGS) != 0) {
+      return false;
+    }
+
+    TcpRequest request = requestMap.get(msgId);
+    if (!(request instanceof TcpRelayRequest)) {
+      return false;
+    }
+
+    missedHeartbeats = 0;
+    if (requestMap.remove(msgId) != null) {
+      // otherwise already timeout, just discard
+      ((TcpRelayRequest) request).onReply(frame);
+    }
+    return true;
+  }
+
+  private void onSendFailed(long msgId, Throwable e) {
+    TcpRequest request = requestMap.remove(msgId);
+    if (request != null) {
+      request.onSendError(e);
+    }
+  }
+
+  private void addRequest(long msgId, TcpRequest request) {
+    requestMap.put(msgId, request);
+    if (timingWheel != null) {
+      request.setTimeout(timingWheel.newTimeout(request.getMsTimeout(), () -> onRequestTimeout(msgId)));
+    }
+  }
+
+  private void onRequestTimeout(long msgId) {
+    // 可能正好收到reply，且被处理了，所以这里的remove不一定有效
+    TcpRequest request = requestMap.remove(msgId);
+    if (request == null) {
+      return;
+    }
+
+    String msg = String.format("request timeout, msgId=%d, address=%s", msgId, socketAddress);
+    LOGGER.error(msg);
+    request.onTimeout(new TimeoutException(msg));
+  }
+
   private boolean writeToBufferQueue(AbstractTcpClientPackage tcpClientPackage) {
     // read status maybe out of eventloop thread, it's not exact
     // just optimize for main scenes
     if (Status.WORKING.equals(status)) {
       // encode in sender thread
-      try (TcpOutputStream os = tcpClientPackage.createStream()) {
-        write(os.getByteBuf());
+      try (TcpOutputStream os = createStream(tcpClientPackage)) {
+        if (!write(os)) {
+          onWriteRejected(tcpClientPackage);
+          return true;
+        }
         tcpClientPackage.finishWriteToBuffer();
       }
       return true;
@@ -154,39 +485,204 @@ public class TcpClientConnection extends TcpConnection {
         break;
       }
 
-      try (TcpOutputStream os = pkg.createStream()) {
-        Buffer buf = os.getBuffer();
-        netSocket.write(buf);
+      try (TcpOutputStream os = createStream(pkg)) {
+        Runnable headerCommitter = os.getHeaderCommitter();
+        writeToSocket(compressFrame(os.detachByteBuf()));
+        // already in socket, packages written later are after it
+        if (headerCommitter != null) {
+          headerCommitter.run();
+        }
         pkg.finishWriteToBuffer();
       }
     }
   }
 
+  private void onWriteRejected(AbstractTcpClientPackage tcpClientPackage) {
+    TcpRequest request = requestMap.remove(tcpClientPackage.getMsgId());
+    if (request != null) {
+      request.onSendError(new IllegalStateException(
+          String.format("write queue is full, msgId=%d, address=%s",
+              tcpClientPackage.getMsgId(),
+              socketAddress)));
+    }
+  }
+
+  private TcpOutputStream createStream(AbstractTcpClientPackage tcpClientPackage) {
+    tcpClientPackage.bindHeaderEncoder(headerEncoder);
+    TcpOutputStream os = clientConfig.isPooledBuffer()
+        ? tcpClientPackage.createStream(PooledByteBufAllocator.DEFAULT)
+        : tcpClientPackage.createStream();
+    if (os.getMsgId() != tcpClientPackage.getMsgId()) {
+      os.setMsgId(tcpClientPackage.getMsgId());
+    }
+    return os;
+  }
+
+  // must be invoked in eventloop thread
+  protected void connectIfDisconnected() {
+    if (!closed && Status.DISCONNECTED.equals(status) && !isInBackoff()) {
+      connect();
+    }
+  }
+
+  /**
+   * connect and login before traffic arrives, and keep reconnecting with backoff after that
+   * handler is invoked in context thread when login success or connect failed
+   */
+  public void preConnect(Handler<AsyncResult<Void>> handler) {
+    context.runOnContext(v -> {
+      keepConnected = true;
+      if (Status.WORKING.equals(status)) {
+        handler.handle(Future.succeededFuture());
+        return;
+      }
+
+      connectWaiters.add(handler);
+      if (isInBackoff()) {
+        // failed when not keepConnected, no reconnect timer yet
+        if (reconnectTimerId == -1) {
+          scheduleReconnect(Math.max(1, nextConnectTime - System.currentTimeMillis()));
+        }
+        return;
+      }
+      connectIfDisconnected();
+    });
+  }
+
+  private void notifyConnectWaiters(Throwable cause) {
+    if (connectWaiters.isEmpty()) {
+      return;
+    }
+
+    List<Handler<AsyncResult<Void>>> waiters = connectWaiters;
+    connectWaiters = new ArrayList<>();
+    AsyncResult<Void> result = cause == null ? Future.succeededFuture() : Future.failedFuture(cause);
+    for (Handler<AsyncResult<Void>> waiter : waiters) {
+      waiter.handle(result);
+    }
+  }
+
+  private long computeReconnectDelay() {
+    double delay = clientConfig.getMsReconnectInitialDelay()
+        * Math.pow(clientConfig.getReconnectMultiplier(), Math.max(0, connectFailures - 1));
+    delay = Math.min(delay, clientConfig.getMsReconnectMaxDelay());
+
+    // jitter, avoid all clients reconnect at the same time
+    double jitter = clientConfig.getReconnectJitter();
+    delay = delay * (1 - jitter + 2 * jitter * ThreadLocalRandom.current().nextDouble());
+    return Math.max(1, (long) delay);
+  }
+
+  private void scheduleReconnect(long msDelay) {
+    if (closed) {
+      return;
+    }
+
+    cancelReconnect();
+    reconnectTimerId = context.owner().setTimer(msDelay, id -> onReconnectTimer());
+  }
+
+  private void onReconnectTimer() {
+    reconnectTimerId = -1;
+    long msWait = nextConnectTime - System.currentTimeMillis();
+    if (Status.DISCONNECTED.equals(status) && msWait > 0) {
+      // timer fired earlier than nextConnectTime, not drop it, otherwise waiters of preConnect never be notified
+      scheduleReconnect(msWait);
+      return;
+    }
+
+    connectIfDisconnected();
+  }
+
+  private void cancelReconnect() {
+    if (reconnectTimerId != -1) {
+      context.owner().cancelTimer(reconnectTimerId);
+      reconnectTimerId = -1;
+    }
+  }
+
+  /**
+   * close and never reconnect, pending reconnect is cancelled
+   */
+  public void close() {
+    context.runOnContext(v -> {
+      closed = true;
+      keepConnected = false;
+      reconnectOnClosed = false;
+      cancelReconnect();
+      if (netSocket != null) {
+        netSocket.close();
+      }
+    });
+  }
+
   @VisibleForTesting
   protected void connect() {
     this.status = Status.CONNECTING;
     LOGGER.info("connecting to address {}", socketAddress.toString());
 
+    Handler<AsyncResult<NetSocket>> connectHandler = ar -> {
+      if (ar.succeeded()) {
+        onConnectSuccess(ar.result());
+        return;
+      }
+
+      onConnectFailed(ar.cause());
+    };
+    if (endpoint.isDomainSocket()) {
+      connectDomainSocket(connectHandler);
+      return;
+    }
+
     netClientWrapper.connect(endpoint.isSslEnabled(),
         socketAddress.getPort(),
         socketAddress.getHostString(),
-        ar -> {
-          if (ar.succeeded()) {
-            onConnectSuccess(ar.result());
-            return;
-          }
+        connectHandler);
+  }
 
-          onConnectFailed(ar.cause());
-        });
+  // same host, skip tcp stack, framing and login are the same as tcp
+  private void connectDomainSocket(Handler<AsyncResult<NetSocket>> connectHandler) {
+    if (!context.owner().isNativeTransportEnabled()) {
+      connectHandler.handle(Future.failedFuture(new IllegalStateException(
+          String.format("domain socket %s requires vertx native transport, check VertxOptions.preferNativeTransport.",
+              endpoint.getDomainSocketPath()))));
+      return;
+    }
+
+    netClientWrapper.connect(endpoint.isSslEnabled(),
+        SocketAddress.domainSocketAddress(endpoint.getDomainSocketPath()),
+        connectHandler);
   }
 
   private void onConnectSuccess(NetSocket socket) {
+    if (closed) {
+      // closed when connecting
+      this.status = Status.DISCONNECTED;
+      socket.close();
+      Throwable cause = new IllegalStateException(String.format("connection to %s already closed.", socketAddress));
+      clearCachedRequest(cause);
+      notifyConnectWaiters(cause);
+      return;
+    }
+
     LOGGER.info("connected to address {} success in thread {}.",
         socketAddress.toString(),
         Thread.currentThread().getName());
     // currently, socket always be NetSocketImpl
     this.initNetSocket((NetSocketImpl) socket);
-    socket.handler(new TcpParser(this::onReply));
+    // negotiate again for every connection
+    setZipName(null);
+    setHeaderTableSize(0);
+    setControlFlags(0);
+    parser = new TcpParser(this::onReply);
+    parser.setReadConfig(clientConfig.getReadConfig());
+    parser.setControlHandler(this::onControl);
+    parser.setRawFrameHandler(this::onRawReply);
+    parser.bindSocket(socket, context, readControl);
+    inboundStreams = new TcpInboundStreams(context, readControl, this::onStreamReply,
+        clientConfig.getStreamBufferedChunks());
+    parser.setStreamHandler(inboundStreams);
+    socket.handler(parser);
 
     socket.exceptionHandler(this::onException);
     socket.closeHandler(this::onClosed);
@@ -196,7 +692,70 @@ public class TcpClientConnection extends TcpConnection {
   }
 
   private void onClosed(Void v) {
+    stopHeartbeat();
+    parser.release();
+    inboundStreams.abortAll(new IOException("socket closed"));
+    clearWriteQueue();
     onDisconnected(new IOException("socket closed"));
+
+    if (reconnectOnClosed || keepConnected) {
+      reconnectOnClosed = false;
+      // not backoff for the first time, but still jitter, avoid reconnect storm after server restarted
+      scheduleReconnect(computeReconnectDelay());
+    }
+  }
+
+  private void startHeartbeat() {
+    long msInterval = clientConfig.getMsHeartbeatInterval();
+    if (msInterval <= 0 || heartbeatTimerId != -1) {
+      return;
+    }
+    if (!isControlFlagEnabled(TcpConst.FLAG_HEARTBEAT)) {
+      // old server treats the flag as headerLen, and the stream broken
+      LOGGER.warn("heartbeat not negotiated in login, not send heartbeat to {}.", socketAddress);
+      return;
+    }
+
+    missedHeartbeats = 0;
+    // invoked in context thread, so timer is bound to this context
+    heartbeatTimerId = context.owner().setPeriodic(msInterval, id -> onHeartbeatTick());
+  }
+
+  private void stopHeartbeat() {
+    if (heartbeatTimerId != -1) {
+      context.owner().cancelTimer(heartbeatTimerId);
+      heartbeatTimerId = -1;
+    }
+  }
+
+  private void onHeartbeatTick() {
+    if (!Status.WORKING.equals(status)) {
+      return;
+    }
+
+    if (missedHeartbeats >= clientConfig.getHeartbeatMissThreshold()) {
+      LOGGER.error("missed {} heartbeats, reconnect to {}.", missedHeartbeats, socketAddress);
+      healthy = false;
+      reconnectOnClosed = true;
+      netSocket.close();
+      return;
+    }
+
+    missedHeartbeats++;
+    try (TcpOutputStream os = new TcpOutputStream(System.nanoTime())) {
+      os.writeLength(0, TcpConst.FLAG_HEARTBEAT);
+      write(os.detachByteBuf());
+    }
+  }
+
+  private void onHeartbeatAck(long sendTime) {
+    missedHeartbeats = 0;
+    healthy = true;
+
+    long sample = System.nanoTime() - sendTime;
+    long smoothed = rtt;
+    // same as tcp SRTT, alpha is 1/8
+    rtt = smoothed == 0 ? sample : smoothed + (sample - smoothed) / 8;
   }
 
   // 异常断连时，先触发onException，再触发onClosed
@@ -218,6 +777,7 @@ public class TcpClientConnection extends TcpConnection {
         e.getMessage());
 
     clearCachedRequest(e);
+    notifyConnectWaiters(e);
   }
 
   protected void tryLogin() {
@@ -235,9 +795,8 @@ public class TcpClientConnection extends TcpConnection {
     LOGGER.info("try login to address {}", socketAddress.toString());
 
     try (TcpOutputStream os = createLogin()) {
-      requestMap.put(os.getMsgId(),
-          new TcpRequest(clientConfig.getMsLoginTimeout(), this::onLoginResponse));
-      netSocket.write(os.getBuffer());
+      addRequest(os.getMsgId(), new TcpRequest(clientConfig.getMsLoginTimeout(), this::onLoginResponse));
+      writeToSocket(os.detachByteBuf());
     }
   }
 
@@ -261,32 +820,50 @@ public class TcpClientConnection extends TcpConnection {
   }
 
   private void onLoginSuccess() {
+    parser.setFrameCompressor(frameCompressor);
+    parser.setHeaderDecoder(headerDecoder);
     this.status = Status.WORKING;
+    this.healthy = true;
+    this.connectFailures = 0;
+    this.nextConnectTime = 0;
+    startHeartbeat();
+    notifyConnectWaiters(null);
     writeInContext();
   }
 
   private void onConnectFailed(Throwable cause) {
     // 连接失败
     this.status = Status.DISCONNECTED;
+    this.healthy = false;
     String msg = String.format("connect to address %s failed.",
         socketAddress.toString());
     LOGGER.error(msg, cause);
 
+    connectFailures++;
+    long msDelay = computeReconnectDelay();
+    nextConnectTime = System.currentTimeMillis() + msDelay;
     clearCachedRequest(cause);
+    notifyConnectWaiters(cause);
+
+    if (keepConnected) {
+      scheduleReconnect(msDelay);
+    }
   }
 
   protected void clearCachedRequest(Throwable cause) {
     // 在onSendError，用户可能发起一次新的调用，需要避免作多余的清理
-    Map<Long, TcpRequest> oldMap = requestMap;
-    requestMap = new ConcurrentHashMap<>();
+    // so remove all first, then notify
+    List<TcpRequest> requests = new ArrayList<>(requestMap.size());
+    requestMap.removeAll((msgId, request) -> requests.add(request));
 
-    for (TcpRequest request : oldMap.values()) {
+    for (TcpRequest request : requests) {
       request.onSendError(cause);
     }
-    oldMap.clear();
   }
 
   protected void onReply(long msgId, Buffer headerBuffer, Buffer bodyBuffer) {
+    // any reply proves the peer alive
+    missedHeartbeats = 0;
     TcpRequest request = requestMap.remove(msgId);
     if (request == null) {
       LOGGER.error("Unknown reply msgId {}, waiting count {}", msgId, requestMap.size());
@@ -296,21 +873,39 @@ public class TcpClientConnection extends TcpConnection {
     request.onReply(headerBuffer, bodyBuffer);
   }
 
+  protected void onControl(long msgId, int flags) {
+    if ((flags & TcpConst.FLAG_HEARTBEAT_ACK) != 0) {
+      onHeartbeatAck(msgId);
+      return;
+    }
+
+    if ((flags & TcpConst.FLAG_OVERLOADED) != 0) {
+      TcpRequest request = requestMap.remove(msgId);
+      if (request != null) {
+        request.onSendError(new RejectedExecutionException(
+            String.format("server overloaded, msgId=%d, address=%s", msgId, socketAddress)));
+      }
+    }
+  }
+
+  protected void onStreamReply(long msgId, Buffer headerBuffer, ReadStream<Buffer> bodyStream) {
+    TcpRequest request = requestMap.remove(msgId);
+    if (request == null) {
+      LOGGER.error("Unknown stream reply msgId {}, waiting count {}", msgId, requestMap.size());
+      // must consume it, otherwise the connection will be paused
+      bodyStream.handler(data -> {
+      });
+      return;
+    }
+
+    request.onReply(headerBuffer, bodyStream);
+  }
+
   public void checkTimeout() {
-    for (Entry<Long, TcpRequest> entry : requestMap.entrySet()) {
-      TcpRequest request = entry.getValue();
+    requestMap.forEach((msgId, request) -> {
       if (request.isTimeout()) {
-        // 可能正好收到reply，且被处理了，所以这里的remove不一定有效
-        // 是否有效，根据remove的结果来决定
-        request = requestMap.remove(entry.getKey());
-        if (request != null) {
-          String msg =
-              String.format("request timeout, msgId=%d, address=%s", entry.getKey(), socketAddress);
-          LOGGER.error(msg);
-
-          request.onTimeout(new TimeoutException(msg));
-        }
+        onRequestTimeout(msgId);
       }
-    }
+    });
   }
 }
@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.servicecomb.foundation.vertx.client.tcp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+import org.apache.servicecomb.foundation.common.net.URIEndpointObject;
+import org.apache.servicecomb.foundation.vertx.tcp.TcpConst;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * all connections of one endpoint in one pool
+ *
+ * every send select the healthy connection with least waiting requests, then least queued bytes
+ * grow when all connections are busy, idle connections are removed by reapIdle
+ */
+public class TcpClientConnectionGroup<T extends TcpClientConnection> {
+  private static final Logger LOGGER = LoggerFactory.getLogger(TcpClientConnectionGroup.class);
+
+  private final String endpoint;
+
+  private final Function<String, T> factory;
+
+  private final int minConnections;
+
+  private final int maxConnections;
+
+  private final int growThreshold;
+
+  private final List<T> connections = new CopyOnWriteArrayList<>();
+
+  // removed from connections, close them if still idle in next reap
+  private List<T> retiredConnections = new ArrayList<>();
+
+  public TcpClientConnectionGroup(String endpoint, TcpClientConfig clientConfig, Function<String, T> factory) {
+    this.endpoint = endpoint;
+    this.factory = factory;
+
+    URIEndpointObject endpointObject = new URIEndpointObject(endpoint);
+    this.minConnections = Math.max(1,
+        getIntQuery(endpointObject, TcpConst.CONNECTIONS, clientConfig.getConnectionsPerEndpoint()));
+    this.maxConnections = Math.max(minConnections,
+        getIntQuery(endpointObject, TcpConst.MAX_CONNECTIONS, clientConfig.getMaxConnectionsPerEndpoint()));
+    this.growThreshold = clientConfig.getConnectionGrowThreshold();
+
+    for (int idx = 0; idx < minConnections; idx++) {
+      connections.add(factory.apply(endpoint));
+    }
+  }
+
+  private static int getIntQuery(URIEndpointObject endpointObject, String key, int defaultValue) {
+    String value = endpointObject.getFirst(key);
+    return value == null ? defaultValue : Integer.parseInt(value);
+  }
+
+  public String getEndpoint() {
+    return endpoint;
+  }
+
+  public List<T> getConnections() {
+    return connections;
+  }
+
+  /**
+   * connect and login all connections before any request
+   * must be invoked in eventloop thread
+   */
+  public void warmUp() {
+    for (T connection : connections) {
+      connection.connectIfDisconnected();
+    }
+  }
+
+  public T select() {
+    T selected = null;
+    for (T connection : connections) {
+      if (selected == null || isBetter(connection, selected)) {
+        selected = connection;
+      }
+    }
+
+    if (selected.getWaitingRequestCount() >= growThreshold && connections.size() < maxConnections) {
+      return grow(selected);
+    }
+    return selected;
+  }
+
+  // unhealthy connections only used when all connections are unhealthy
+  private boolean isBetter(T connection, T selected) {
+    if (connection.isHealthy() != selected.isHealthy()) {
+      return connection.isHealthy();
+    }
+
+    return isLessLoaded(connection, selected);
+  }
+
+  private boolean isLessLoaded(T connection, T selected) {
+    int waiting = connection.getWaitingRequestCount();
+    int selectedWaiting = selected.getWaitingRequestCount();
+    if (waiting != selectedWaiting) {
+      return waiting < selectedWaiting;
+    }
+
+    return connection.getWriteQueueBytes() < selected.getWriteQueueBytes();
+  }
+
+  // retired connections are not closed yet, count them too
+  private synchronized T grow(T selected) {
+    if (connections.size() + retiredConnections.size() >= maxConnections) {
+      return selected;
+    }
+
+    T connection = factory.apply(endpoint);
+    connections.add(connection);
+    LOGGER.info("add connection to {}, count={}", endpoint, connections.size());
+    return connection;
+  }
+
+  /**
+   * must be invoked in the context thread of the pool
+   * remove connections idle longer than msIdleTimeout from selection first, and close them in next reap
+   * so that requests just selected them can finish
+   */
+  public synchronized void reapIdle(long msIdleTimeout) {
+    long now = System.currentTimeMillis();
+    for (T connection : retiredConnections) {
+      if (isIdle(connection, now, msIdleTimeout)) {
+        connection.close();
+      } else {
+        // selected just before retired, keep working
+        connections.add(connection);
+      }
+    }
+    retiredConnections = new ArrayList<>();
+
+    for (T connection : connections) {
+      if (connections.size() <= minConnections) {
+        break;
+      }
+
+      if (isIdle(connection, now, msIdleTimeout)) {
+        connections.remove(connection);
+        retiredConnections.add(connection);
+        LOGGER.info("retire idle connection to {}, count={}", endpoint, connections.size());
+      }
+    }
+  }
+
+  private boolean isIdle(T connection, long now, long msIdleTimeout) {
+    return connection.getWaitingRequestCount() == 0 && now - connection.getLastSendTime() >= msIdleTimeout;
+  }
+}
@@ -16,17 +16,62 @@
  */
 package org.apache.servicecomb.foundation.vertx.client.tcp;
 
+import java.util.function.Consumer;
+
 import org.apache.servicecomb.foundation.vertx.tcp.TcpOutputStream;
 
+import io.netty.buffer.ByteBufAllocator;
+
 public class TcpClientPackage extends AbstractTcpClientPackage {
   private TcpOutputStream os;
 
+  // write length, header and body after tcp magic and msgId, null if created by an encoded stream
+  private Consumer<TcpOutputStream> encoder;
+
+  private int sizeHint;
+
   public TcpClientPackage(TcpOutputStream os) {
     this.os = os;
   }
 
+  /**
+   * encode when send, so that can be encoded to pooled buffer when TcpClientConfig.pooledBuffer is enabled
+   */
+  public TcpClientPackage(Consumer<TcpOutputStream> encoder, int sizeHint) {
+    this.encoder = encoder;
+    this.sizeHint = sizeHint;
+  }
+
+  @Override
+  public int getSizeHint() {
+    return sizeHint;
+  }
+
   @Override
   public TcpOutputStream createStream() {
-    return os;
+    if (encoder == null) {
+      return os;
+    }
+
+    TcpOutputStream stream = new TcpOutputStream(getMsgId());
+    encoder.accept(stream);
+    return stream;
+  }
+
+  @Override
+  public TcpOutputStream createStream(ByteBufAllocator allocator) {
+    if (encoder == null) {
+      // already encoded
+      return os;
+    }
+
+    TcpOutputStream stream = new TcpOutputStream(getMsgId(), allocator, sizeHint);
+    try {
+      encoder.accept(stream);
+    } catch (Throwable e) {
+      stream.close();
+      throw e;
+    }
+    return stream;
   }
 }
@@ -18,17 +18,26 @@
 package org.apache.servicecomb.foundation.vertx.client.tcp;
 
 import io.vertx.core.buffer.Buffer;
+import io.vertx.core.streams.ReadStream;
 
 public class TcpData {
   private Buffer headerBuffer;
 
   private Buffer bodyBuffer;
 
+  // not null for streaming response, and bodyBuffer is null
+  private ReadStream<Buffer> bodyStream;
+
   public TcpData(Buffer headerBuffer, Buffer bodyBuffer) {
     this.headerBuffer = headerBuffer;
     this.bodyBuffer = bodyBuffer;
   }
 
+  public TcpData(Buffer headerBuffer, ReadStream<Buffer> bodyStream) {
+    this.headerBuffer = headerBuffer;
+    this.bodyStream = bodyStream;
+  }
+
   public Buffer getHeaderBuffer() {
     return headerBuffer;
   }
@@ -44,4 +53,16 @@ public class TcpData {
   public void setBodyBuffer(Buffer bodyBuffer) {
     this.bodyBuffer = bodyBuffer;
   }
+
+  public boolean isStream() {
+    return bodyStream != null;
+  }
+
+  public ReadStream<Buffer> getBodyStream() {
+    return bodyStream;
+  }
+
+  public void setBodyStream(ReadStream<Buffer> bodyStream) {
+    this.bodyStream = bodyStream;
+  }
 }
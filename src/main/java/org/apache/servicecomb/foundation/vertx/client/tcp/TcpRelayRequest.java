@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.servicecomb.foundation.vertx.client.tcp;
+
+import org.apache.servicecomb.foundation.vertx.server.TcpParser;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * request forwarded by TcpClientConnection.relay, reply is not decoded
+ */
+public class TcpRelayRequest extends TcpRequest {
+  private final long originalMsgId;
+
+  private final TcpRelayCallback relayCallback;
+
+  public TcpRelayRequest(long msTimeout, long originalMsgId, TcpRelayCallback relayCallback) {
+    super(msTimeout, ar -> {
+      if (ar.failed()) {
+        relayCallback.onFail(ar.cause());
+        return;
+      }
+
+      // only streaming reply is decoded
+      if (ar.result().isStream()) {
+        ar.result().getBodyStream().handler(data -> {
+        });
+      }
+      relayCallback.onFail(new IllegalStateException("streaming reply can not be relayed."));
+    });
+    this.originalMsgId = originalMsgId;
+    this.relayCallback = relayCallback;
+  }
+
+  public long getOriginalMsgId() {
+    return originalMsgId;
+  }
+
+  // frame is not retained
+  public void onReply(ByteBuf frame) {
+    cancelTimeout();
+    frame.setLong(frame.readerIndex() + TcpParser.MSG_ID_OFFSET, originalMsgId);
+    relayCallback.onReply(frame.retain());
+  }
+}
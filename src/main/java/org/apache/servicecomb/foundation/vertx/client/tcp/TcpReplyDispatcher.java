@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.servicecomb.foundation.vertx.client.tcp;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.servicecomb.foundation.vertx.metrics.metric.DefaultTcpReplyMetric;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.vertx.core.Context;
+import io.vertx.core.impl.ContextInternal;
+
+/**
+ * deliver replies to caller context, one for each caller context
+ *
+ * same as write queue of TcpConnection:
+ * replies are saved in a CAS queue, and only submit one task to caller context for all of them
+ */
+public class TcpReplyDispatcher {
+  private static final Logger LOGGER = LoggerFactory.getLogger(TcpReplyDispatcher.class);
+
+  private static final String KEY = TcpReplyDispatcher.class.getName();
+
+  private static final DefaultTcpReplyMetric METRIC = new DefaultTcpReplyMetric();
+
+  static class Reply {
+    final TcpResponseCallback callback;
+
+    final TcpData tcpData;
+
+    final long enqueueTime = System.nanoTime();
+
+    Reply(TcpResponseCallback callback, TcpData tcpData) {
+      this.callback = callback;
+      this.tcpData = tcpData;
+    }
+  }
+
+  private final Context context;
+
+  private final Queue<Reply> replyQueue = new ConcurrentLinkedQueue<>();
+
+  private final AtomicLong replyQueueSize = new AtomicLong();
+
+  private TcpReplyDispatcher(Context context) {
+    this.context = context;
+  }
+
+  public static TcpReplyDispatcher find(Context context) {
+    return (TcpReplyDispatcher) ((ContextInternal) context).contextData()
+        .computeIfAbsent(KEY, key -> new TcpReplyDispatcher(context));
+  }
+
+  /**
+   * summary of all caller contexts
+   */
+  public static DefaultTcpReplyMetric getMetric() {
+    return METRIC;
+  }
+
+  public void dispatch(TcpResponseCallback callback, TcpData tcpData) {
+    replyQueue.add(new Reply(callback, tcpData));
+    if (replyQueueSize.getAndIncrement() == 0) {
+      context.runOnContext(v -> deliver());
+    }
+  }
+
+  private void deliver() {
+    int batchSize = 0;
+    long batchHopTime = 0;
+    for (; ; ) {
+      Reply reply = replyQueue.poll();
+      if (reply == null) {
+        break;
+      }
+
+      replyQueueSize.decrementAndGet();
+      batchSize++;
+      batchHopTime += System.nanoTime() - reply.enqueueTime;
+      try {
+        reply.callback.success(reply.tcpData);
+      } catch (Throwable e) {
+        LOGGER.error("failed to process tcp reply.", e);
+      }
+    }
+
+    if (batchSize != 0) {
+      METRIC.onBatch(batchSize, batchHopTime);
+    }
+  }
+}
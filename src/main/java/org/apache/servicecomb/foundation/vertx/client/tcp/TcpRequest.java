@@ -19,9 +19,12 @@ package org.apache.servicecomb.foundation.vertx.client.tcp;
 
 import java.util.concurrent.TimeoutException;
 
+import org.apache.servicecomb.foundation.vertx.timer.TimingWheel;
+
 import io.vertx.core.Context;
 import io.vertx.core.Vertx;
 import io.vertx.core.buffer.Buffer;
+import io.vertx.core.streams.ReadStream;
 
 public class TcpRequest {
   private long begin;
@@ -34,6 +37,8 @@ public class TcpRequest {
 
   private TcpResponseCallback responseCallback;
 
+  private volatile TimingWheel.Timeout timeout;
+
   public TcpRequest(long msTimeout, TcpResponseCallback responseCallback) {
     callContext = Vertx.currentContext();
     threadId = Thread.currentThread().getId();
@@ -42,20 +47,43 @@ public class TcpRequest {
     this.responseCallback = responseCallback;
   }
 
+  public long getMsTimeout() {
+    return msTimeout;
+  }
+
+  public void setTimeout(TimingWheel.Timeout timeout) {
+    this.timeout = timeout;
+  }
+
+  protected void cancelTimeout() {
+    TimingWheel.Timeout timeout = this.timeout;
+    if (timeout != null) {
+      timeout.cancel();
+    }
+  }
+
   public void onReply(Buffer headerBuffer, Buffer bodyBuffer) {
-    TcpData tcpData = new TcpData(headerBuffer, bodyBuffer);
+    cancelTimeout();
+    onReply(new TcpData(headerBuffer, bodyBuffer));
+  }
 
+  public void onReply(Buffer headerBuffer, ReadStream<Buffer> bodyStream) {
+    cancelTimeout();
+    onReply(new TcpData(headerBuffer, bodyStream));
+  }
+
+  private void onReply(TcpData tcpData) {
     if (callContext == null || threadId == Thread.currentThread().getId()) {
       responseCallback.success(tcpData);
       return;
     }
 
-    callContext.runOnContext(Void -> {
-      responseCallback.success(tcpData);
-    });
+    // batch replies to the same context
+    TcpReplyDispatcher.find(callContext).dispatch(responseCallback, tcpData);
   }
 
   public void onSendError(Throwable e) {
+    cancelTimeout();
     responseCallback.fail(e);
   }
 
@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.servicecomb.foundation.vertx.client.tcp;
+
+import org.apache.servicecomb.foundation.vertx.server.TcpParser;
+import org.apache.servicecomb.foundation.vertx.tcp.TcpConst;
+import org.apache.servicecomb.foundation.vertx.tcp.TcpOutboundStream;
+import org.apache.servicecomb.foundation.vertx.tcp.TcpOutputStream;
+import org.apache.servicecomb.foundation.vertx.tcp.header.TcpHeaderEncoder;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+
+/**
+ * first package of a streaming request, body chunks are sent after it's written to buffer
+ */
+public class TcpStreamClientPackage extends AbstractTcpClientPackage {
+  private final AbstractTcpClientPackage headPackage;
+
+  private final TcpOutboundStream bodyStream;
+
+  public TcpStreamClientPackage(AbstractTcpClientPackage headPackage, TcpOutboundStream bodyStream) {
+    this.headPackage = headPackage;
+    this.bodyStream = bodyStream;
+    this.msgId = headPackage.getMsgId();
+    this.msgIdOwner = headPackage.msgIdOwner;
+    this.setMsRequestTimeout(headPackage.getMsRequestTimeout());
+  }
+
+  public TcpOutboundStream getBodyStream() {
+    return bodyStream;
+  }
+
+  @Override
+  public int getSizeHint() {
+    return headPackage.getSizeHint();
+  }
+
+  @Override
+  public void bindHeaderEncoder(TcpHeaderEncoder headerEncoder) {
+    super.bindHeaderEncoder(headerEncoder);
+    headPackage.bindHeaderEncoder(headerEncoder);
+  }
+
+  @Override
+  public TcpOutputStream createStream() {
+    return markStream(headPackage.createStream());
+  }
+
+  @Override
+  public TcpOutputStream createStream(ByteBufAllocator allocator) {
+    return markStream(headPackage.createStream(allocator));
+  }
+
+  private TcpOutputStream markStream(TcpOutputStream os) {
+    ByteBuf byteBuf = os.getByteBuf();
+    int idx = byteBuf.readerIndex() + TcpParser.HEADER_LEN_OFFSET;
+    byteBuf.setInt(idx, byteBuf.getInt(idx) | TcpConst.FLAG_STREAM);
+    return os;
+  }
+
+  @Override
+  public void finishWriteToBuffer() {
+    super.finishWriteToBuffer();
+    headPackage.finishWriteToBuffer();
+
+    bodyStream.start();
+  }
+}
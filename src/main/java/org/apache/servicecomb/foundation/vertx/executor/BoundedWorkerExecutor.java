@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.servicecomb.foundation.vertx.executor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.servicecomb.foundation.vertx.metrics.metric.DefaultWorkerPoolMetric;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.WorkerExecutor;
+
+/**
+ * named vertx worker pool, with a bound of waiting tasks
+ * so a slow route can only exhaust its own pool, but not the shared vertx worker pool
+ *
+ * can be invoked in any thread, not require vertx context
+ */
+public class BoundedWorkerExecutor implements Executor {
+  private static final Logger LOGGER = LoggerFactory.getLogger(BoundedWorkerExecutor.class);
+
+  private final String name;
+
+  private final int poolSize;
+
+  private final int maxQueueSize;
+
+  private final WorkerExecutor workerExecutor;
+
+  // waiting and running tasks
+  private final AtomicInteger pendingCount = new AtomicInteger();
+
+  private final DefaultWorkerPoolMetric metric;
+
+  public BoundedWorkerExecutor(Vertx vertx, String name, int poolSize, int maxQueueSize) {
+    this.name = name;
+    this.poolSize = poolSize;
+    this.maxQueueSize = maxQueueSize;
+    this.workerExecutor = vertx.createSharedWorkerExecutor(name, poolSize);
+    this.metric = new DefaultWorkerPoolMetric(name);
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public int getPoolSize() {
+    return poolSize;
+  }
+
+  public int getMaxQueueSize() {
+    return maxQueueSize;
+  }
+
+  // tasks not started yet
+  public int getQueueSize() {
+    return Math.max(0, pendingCount.get() - poolSize);
+  }
+
+  public DefaultWorkerPoolMetric getMetric() {
+    return metric;
+  }
+
+  /**
+   * @throws RejectedExecutionException if waiting tasks reach maxQueueSize
+   */
+  @Override
+  public void execute(Runnable command) {
+    if (pendingCount.incrementAndGet() > poolSize + maxQueueSize) {
+      pendingCount.decrementAndGet();
+      metric.onRejected();
+      throw new RejectedExecutionException(
+          String.format("worker pool %s is full, poolSize=%d, maxQueueSize=%d.", name, poolSize, maxQueueSize));
+    }
+
+    metric.onSubmitted();
+    long submitTime = System.nanoTime();
+    try {
+      workerExecutor.executeBlocking(promise -> {
+        long startTime = System.nanoTime();
+        try {
+          command.run();
+        } catch (Throwable e) {
+          LOGGER.error("failed to run task in worker pool {}.", name, e);
+        } finally {
+          pendingCount.decrementAndGet();
+          metric.onCompleted(startTime - submitTime, System.nanoTime() - startTime);
+        }
+        promise.complete();
+      }, false, null);
+    } catch (Throwable e) {
+      // eg: worker executor closed, task never run, otherwise the slot is leaked
+      pendingCount.decrementAndGet();
+      metric.onRejected();
+      throw e;
+    }
+  }
+
+  public void close() {
+    workerExecutor.close();
+  }
+}
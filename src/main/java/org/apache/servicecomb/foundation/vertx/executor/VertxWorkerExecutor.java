@@ -19,13 +19,29 @@ package org.apache.servicecomb.foundation.vertx.executor;
 
 import java.util.concurrent.Executor;
 
+import io.vertx.core.Context;
 import io.vertx.core.Vertx;
 
 public class VertxWorkerExecutor implements Executor {
+  // used when invoked out of vertx context
+  private Vertx vertx;
+
+  public VertxWorkerExecutor() {
+  }
+
+  public VertxWorkerExecutor(Vertx vertx) {
+    this.vertx = vertx;
+  }
 
   @Override
   public void execute(Runnable command) {
-    Vertx.currentContext().owner().executeBlocking(future -> {
+    Context context = Vertx.currentContext();
+    Vertx owner = context != null ? context.owner() : vertx;
+    if (owner == null) {
+      throw new IllegalStateException("not in vertx context, should create VertxWorkerExecutor with a vertx instance.");
+    }
+
+    owner.executeBlocking(future -> {
           command.run();
         },
         false,
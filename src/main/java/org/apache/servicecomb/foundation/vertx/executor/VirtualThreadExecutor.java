@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.servicecomb.foundation.vertx.executor;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.apache.servicecomb.foundation.vertx.metrics.metric.DefaultWorkerPoolMetric;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * run each task in a new virtual thread, only available when running on JDK 21+
+ * concurrency is limited by maxConcurrency, tasks exceed it are parked in its own virtual thread,
+ * not occupy any carrier thread, and rejected when waiting tasks reach maxWaiting
+ *
+ * JDK is detected by reflection, so that can still be compiled and run on old JDK, check isSupported before create
+ */
+public class VirtualThreadExecutor implements Executor {
+  private static final Logger LOGGER = LoggerFactory.getLogger(VirtualThreadExecutor.class);
+
+  // create virtual thread factory by name prefix, null if not supported
+  // threads are named as prefix + counter, eg: pool-0, pool-1
+  private static final Function<String, ThreadFactory> FACTORY_CREATOR = findFactoryCreator();
+
+  private final String name;
+
+  private final int maxConcurrency;
+
+  private final int maxWaiting;
+
+  private final ThreadFactory threadFactory;
+
+  private final Semaphore permits;
+
+  // waiting and running tasks
+  private final AtomicInteger pendingCount = new AtomicInteger();
+
+  private final DefaultWorkerPoolMetric metric;
+
+  // Thread.ofVirtual().name(prefix, 0).factory()
+  private static Function<String, ThreadFactory> findFactoryCreator() {
+    try {
+      Method ofVirtual = Thread.class.getMethod("ofVirtual");
+      Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+      Method name = builderClass.getMethod("name", String.class, long.class);
+      Method factory = builderClass.getMethod("factory");
+      Function<String, ThreadFactory> creator = prefix -> {
+        try {
+          return (ThreadFactory) factory.invoke(name.invoke(ofVirtual.invoke(null), prefix, 0L));
+        } catch (ReflectiveOperationException e) {
+          throw new IllegalStateException("failed to create virtual thread factory.", e);
+        }
+      };
+      // JDK 19/20 has the method, but throws UnsupportedOperationException if preview is not enabled
+      creator.apply("probe-");
+      return creator;
+    } catch (Throwable e) {
+      LOGGER.info("virtual thread is not supported, cause={}.", e.toString());
+      return null;
+    }
+  }
+
+  public static boolean isSupported() {
+    return FACTORY_CREATOR != null;
+  }
+
+  public VirtualThreadExecutor(String name, int maxConcurrency, int maxWaiting) {
+    if (!isSupported()) {
+      throw new IllegalStateException("virtual thread is not supported by JDK " + System.getProperty("java.version"));
+    }
+
+    this.name = name;
+    this.maxConcurrency = maxConcurrency;
+    this.maxWaiting = maxWaiting;
+    this.threadFactory = FACTORY_CREATOR.apply(name + "-");
+    this.permits = new Semaphore(maxConcurrency);
+    this.metric = new DefaultWorkerPoolMetric(name);
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public int getMaxConcurrency() {
+    return maxConcurrency;
+  }
+
+  public int getMaxWaiting() {
+    return maxWaiting;
+  }
+
+  // tasks waiting for permit
+  public int getQueueSize() {
+    return Math.max(0, pendingCount.get() - maxConcurrency);
+  }
+
+  public DefaultWorkerPoolMetric getMetric() {
+    return metric;
+  }
+
+  /**
+   * @throws RejectedExecutionException if waiting tasks reach maxWaiting
+   */
+  @Override
+  public void execute(Runnable command) {
+    if (pendingCount.incrementAndGet() > maxConcurrency + maxWaiting) {
+      pendingCount.decrementAndGet();
+      metric.onRejected();
+      throw new RejectedExecutionException(
+          String.format("virtual thread pool %s is full, maxConcurrency=%d, maxWaiting=%d.", name, maxConcurrency,
+              maxWaiting));
+    }
+
+    metric.onSubmitted();
+    long submitTime = System.nanoTime();
+    try {
+      threadFactory.newThread(() -> run(command, submitTime)).start();
+    } catch (Throwable e) {
+      pendingCount.decrementAndGet();
+      metric.onRejected();
+      throw e;
+    }
+  }
+
+  // in virtual thread
+  private void run(Runnable command, long submitTime) {
+    // park virtual thread, not block carrier thread
+    permits.acquireUninterruptibly();
+    long startTime = System.nanoTime();
+    try {
+      command.run();
+    } catch (Throwable e) {
+      LOGGER.error("failed to run task in virtual thread pool {}.", name, e);
+    } finally {
+      permits.release();
+      pendingCount.decrementAndGet();
+      metric.onCompleted(startTime - submitTime, System.nanoTime() - startTime);
+    }
+  }
+}
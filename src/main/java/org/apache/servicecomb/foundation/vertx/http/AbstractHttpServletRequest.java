@@ -47,14 +47,21 @@ public abstract class AbstractHttpServletRequest extends BodyBufferSupportImpl i
 
   @Override
   public Object getAttribute(String name) {
+    checkNotRecycled();
     return attributeMap.get(name);
   }
 
   @Override
   public Enumeration<String> getAttributeNames() {
+    checkNotRecycled();
     return Collections.enumeration(attributeMap.keySet());
   }
 
+  // used when recycle
+  protected void clearAttributes() {
+    attributeMap.clear();
+  }
+
   @Override
   public String getCharacterEncoding() {
     throw new Error("not supported method");
@@ -142,11 +149,13 @@ public abstract class AbstractHttpServletRequest extends BodyBufferSupportImpl i
 
   @Override
   public void setAttribute(String name, Object o) {
+    checkNotRecycled();
     attributeMap.put(name, o);
   }
 
   @Override
   public void removeAttribute(String name) {
+    checkNotRecycled();
     attributeMap.remove(name);
   }
 
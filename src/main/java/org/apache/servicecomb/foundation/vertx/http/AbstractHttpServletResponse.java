@@ -228,14 +228,21 @@ public abstract class AbstractHttpServletResponse extends BodyBufferSupportImpl
 
   @Override
   public void setAttribute(String key, Object value) {
+    checkNotRecycled();
     this.attributes.put(key, value);
   }
 
   @Override
   public Object getAttribute(String key) {
+    checkNotRecycled();
     return this.attributes.get(key);
   }
 
+  // used when recycle
+  protected void clearAttributes() {
+    attributes.clear();
+  }
+
   @Override
   public CompletableFuture<Void> sendPart(Part body) {
     throw new Error("not supported method");
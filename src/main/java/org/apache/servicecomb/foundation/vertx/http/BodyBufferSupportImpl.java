@@ -35,6 +35,12 @@ public class BodyBufferSupportImpl implements BodyBufferSupport {
     this.bodyLength = 0;
   }
 
+  /**
+   * invoked before read state, wrappers can be recycled should throw IllegalStateException after recycled
+   */
+  protected void checkNotRecycled() {
+  }
+
   private void prepare() {
     if (bodyBytes == null && bodyBuffer != null) {
       bodyLength = bodyBuffer.length();
@@ -45,17 +51,20 @@ public class BodyBufferSupportImpl implements BodyBufferSupport {
 
   @Override
   public Buffer getBodyBuffer() {
+    checkNotRecycled();
     return bodyBuffer;
   }
 
   @Override
   public byte[] getBodyBytes() {
+    checkNotRecycled();
     prepare();
     return bodyBytes;
   }
 
   @Override
   public int getBodyBytesLength() {
+    checkNotRecycled();
     prepare();
     return bodyLength;
   }
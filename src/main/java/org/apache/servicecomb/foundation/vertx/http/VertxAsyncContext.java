@@ -0,0 +1,279 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.servicecomb.foundation.vertx.http;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+
+/**
+ * complete, timeout and listener events are processed in the context of the request
+ * dispatch is not supported, there is no servlet container
+ */
+public class VertxAsyncContext implements AsyncContext {
+  private static final Logger LOGGER = LoggerFactory.getLogger(VertxAsyncContext.class);
+
+  public static final long DEFAULT_TIMEOUT = 30000;
+
+  private static final long NO_TIMER = -1;
+
+  private enum AsyncEventType {
+    COMPLETE,
+    TIMEOUT,
+    ERROR
+  }
+
+  private static class ListenerHolder {
+    final AsyncListener listener;
+
+    final AsyncEvent event;
+
+    ListenerHolder(AsyncListener listener, AsyncEvent event) {
+      this.listener = listener;
+      this.event = event;
+    }
+  }
+
+  private final Context context;
+
+  private final ServletRequest request;
+
+  private final ServletResponse response;
+
+  private final boolean originalRequestAndResponse;
+
+  // run task of start, null means vertx worker pool
+  private final Executor executor;
+
+  private final List<ListenerHolder> listeners = new CopyOnWriteArrayList<>();
+
+  private long timeout = DEFAULT_TIMEOUT;
+
+  // only access in context thread
+  private long timerId = NO_TIMER;
+
+  private volatile boolean completed;
+
+  public VertxAsyncContext(Context context, ServletRequest request, ServletResponse response,
+      boolean originalRequestAndResponse, Executor executor) {
+    this.context = context;
+    this.request = request;
+    this.response = response;
+    this.originalRequestAndResponse = originalRequestAndResponse;
+    this.executor = executor;
+
+    runOnContext(this::startTimer);
+  }
+
+  public boolean isCompleted() {
+    return completed;
+  }
+
+  @Override
+  public ServletRequest getRequest() {
+    return request;
+  }
+
+  @Override
+  public ServletResponse getResponse() {
+    return response;
+  }
+
+  @Override
+  public boolean hasOriginalRequestAndResponse() {
+    return originalRequestAndResponse;
+  }
+
+  @Override
+  public void dispatch() {
+    throw new Error("not supported method");
+  }
+
+  @Override
+  public void dispatch(String path) {
+    throw new Error("not supported method");
+  }
+
+  @Override
+  public void dispatch(ServletContext context, String path) {
+    throw new Error("not supported method");
+  }
+
+  /**
+   * can be invoked in any thread, response is ended in context thread
+   */
+  @Override
+  public void complete() {
+    if (completed) {
+      return;
+    }
+    completed = true;
+
+    runOnContext(() -> {
+      cancelTimer();
+      try {
+        response.flushBuffer();
+      } catch (Throwable e) {
+        LOGGER.error("failed to end async response.", e);
+        fireEvent(AsyncEventType.ERROR, e);
+        return;
+      }
+      fireEvent(AsyncEventType.COMPLETE, null);
+    });
+  }
+
+  @Override
+  public void start(Runnable run) {
+    if (executor != null) {
+      executor.execute(run);
+      return;
+    }
+
+    context.executeBlocking(promise -> {
+      run.run();
+      promise.complete();
+    }, false, null);
+  }
+
+  @Override
+  public void addListener(AsyncListener listener) {
+    addListener(listener, request, response);
+  }
+
+  @Override
+  public void addListener(AsyncListener listener, ServletRequest servletRequest, ServletResponse servletResponse) {
+    listeners.add(new ListenerHolder(listener, new AsyncEvent(this, servletRequest, servletResponse)));
+  }
+
+  @Override
+  public <T extends AsyncListener> T createListener(Class<T> clazz) throws ServletException {
+    try {
+      return clazz.getDeclaredConstructor().newInstance();
+    } catch (ReflectiveOperationException e) {
+      throw new ServletException("failed to create AsyncListener " + clazz.getName(), e);
+    }
+  }
+
+  /**
+   * restart the timer, 0 or negative means never timeout
+   */
+  @Override
+  public void setTimeout(long timeout) {
+    this.timeout = timeout;
+    runOnContext(() -> {
+      cancelTimer();
+      startTimer();
+    });
+  }
+
+  @Override
+  public long getTimeout() {
+    return timeout;
+  }
+
+  /**
+   * eg: connection closed before complete
+   */
+  public void onError(Throwable e) {
+    if (completed) {
+      return;
+    }
+
+    runOnContext(() -> {
+      cancelTimer();
+      fireEvent(AsyncEventType.ERROR, e);
+    });
+  }
+
+  private void startTimer() {
+    if (timeout > 0 && !completed) {
+      timerId = context.owner().setTimer(timeout, id -> onTimeout());
+    }
+  }
+
+  private void cancelTimer() {
+    if (timerId != NO_TIMER) {
+      context.owner().cancelTimer(timerId);
+      timerId = NO_TIMER;
+    }
+  }
+
+  private void onTimeout() {
+    timerId = NO_TIMER;
+    if (completed) {
+      return;
+    }
+
+    fireEvent(AsyncEventType.TIMEOUT, null);
+    if (completed) {
+      return;
+    }
+
+    // no listener completed it
+    if (response instanceof HttpServletResponse) {
+      ((HttpServletResponse) response).setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+    }
+    complete();
+  }
+
+  private void fireEvent(AsyncEventType type, Throwable e) {
+    for (ListenerHolder holder : listeners) {
+      AsyncEvent event = e == null ? holder.event
+          : new AsyncEvent(this, holder.event.getSuppliedRequest(), holder.event.getSuppliedResponse(), e);
+      try {
+        switch (type) {
+          case COMPLETE:
+            holder.listener.onComplete(event);
+            break;
+          case TIMEOUT:
+            holder.listener.onTimeout(event);
+            break;
+          default:
+            holder.listener.onError(event);
+            break;
+        }
+      } catch (IOException | RuntimeException listenerError) {
+        LOGGER.error("AsyncListener failed, event={}.", type, listenerError);
+      }
+    }
+  }
+
+  private void runOnContext(Runnable task) {
+    if (context == Vertx.currentContext() && Context.isOnEventLoopThread()) {
+      task.run();
+      return;
+    }
+
+    context.runOnContext(v -> task.run());
+  }
+}
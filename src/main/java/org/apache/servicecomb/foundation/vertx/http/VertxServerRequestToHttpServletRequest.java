@@ -17,6 +17,7 @@
 
 package org.apache.servicecomb.foundation.vertx.http;
 
+import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Enumeration;
@@ -25,20 +26,26 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 import javax.servlet.AsyncContext;
 import javax.servlet.ServletInputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
 import javax.servlet.http.Cookie;
 import javax.servlet.http.Part;
 import javax.ws.rs.core.HttpHeaders;
 
 import org.apache.servicecomb.foundation.common.http.HttpUtils;
 import org.apache.servicecomb.foundation.vertx.stream.BufferInputStream;
+import org.apache.servicecomb.foundation.vertx.stream.ReadStreamToServletInputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import io.vertx.core.Context;
 import io.vertx.core.MultiMap;
+import io.vertx.core.Vertx;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.http.HttpServerRequest;
 import io.vertx.core.net.SocketAddress;
@@ -68,34 +75,131 @@ public class VertxServerRequestToHttpServletRequest extends AbstractHttpServletR
 
   private String characterEncoding;
 
+  // context of the request
+  private Context vertxContext;
+
+  // used by startAsync(), null means create from RoutingContext
+  private ServletResponse servletResponse;
+
+  // run task of AsyncContext.start, null means vertx worker pool
+  private Executor asyncExecutor;
+
+  private VertxAsyncContext asyncContext;
+
+  private boolean closeHandlerRegistered;
+
+  // true after returned to VertxServletWrapperPool, any access to vertx request is a bug
+  private volatile boolean recycled;
+
   public VertxServerRequestToHttpServletRequest(RoutingContext context, String path) {
     this(context);
     this.path = path;
   }
 
   public VertxServerRequestToHttpServletRequest(RoutingContext context) {
+    init(context);
+  }
+
+  // only used by VertxServletWrapperPool
+  VertxServerRequestToHttpServletRequest() {
+    recycled = true;
+  }
+
+  void init(RoutingContext context) {
+    this.recycled = false;
     this.context = context;
     this.vertxRequest = context.request();
     this.socketAddress = this.vertxRequest.remoteAddress();
+    this.vertxContext = Vertx.currentContext();
     super.setBodyBuffer(context.getBody());
+    if (context.getBody() == null) {
+      createBodyStream();
+    }
+  }
+
+  // clear all state of the request, so it can be reused by another request
+  void recycle() {
+    recycled = true;
+    context = null;
+    vertxRequest = null;
+    cookies = null;
+    closeBodyStream();
+    inputStream = null;
+    path = null;
+    socketAddress = null;
+    parameterMap = null;
+    characterEncoding = null;
+    vertxContext = null;
+    servletResponse = null;
+    asyncExecutor = null;
+    asyncContext = null;
+    closeHandlerRegistered = false;
+    super.setBodyBuffer(null);
+    clearAttributes();
+  }
+
+  boolean isRecycled() {
+    return recycled;
+  }
+
+  @Override
+  protected void checkNotRecycled() {
+    if (recycled) {
+      throw new IllegalStateException("request already recycled, can not be used after response ended.");
+    }
+  }
+
+  private RoutingContext routingContext() {
+    checkNotRecycled();
+    return context;
+  }
+
+  private HttpServerRequest vertxRequest() {
+    checkNotRecycled();
+    return vertxRequest;
+  }
+
+  private SocketAddress remoteAddress() {
+    checkNotRecycled();
+    return socketAddress;
+  }
+
+  // no BodyHandler, read body from request directly, must subscribe before body arrived
+  private void createBodyStream() {
+    if (vertxContext == null || vertxRequest.isEnded()) {
+      return;
+    }
+
+    inputStream = new ReadStreamToServletInputStream(vertxContext, vertxRequest);
+  }
+
+  /**
+   * invoked when response ended, servlet maybe not read the whole body
+   * remain body is discarded and request is resumed, otherwise a paused request stalls the connection
+   */
+  void closeBodyStream() {
+    if (inputStream instanceof ReadStreamToServletInputStream) {
+      ((ReadStreamToServletInputStream) inputStream).close();
+    }
   }
 
   @Override
   public void setBodyBuffer(Buffer bodyBuffer) {
     super.setBodyBuffer(bodyBuffer);
-    context.setBody(bodyBuffer);
+    routingContext().setBody(bodyBuffer);
+    closeBodyStream();
     this.inputStream = null;
   }
 
   @Override
   public String getContentType() {
-    return this.vertxRequest.getHeader(HttpHeaders.CONTENT_TYPE);
+    return vertxRequest().getHeader(HttpHeaders.CONTENT_TYPE);
   }
 
   @Override
   public Cookie[] getCookies() {
     if (cookies == null) {
-      Map<String, io.vertx.core.http.Cookie> vertxCookies = context.cookieMap();
+      Map<String, io.vertx.core.http.Cookie> vertxCookies = routingContext().cookieMap();
       Cookie tmpCookies[] = new Cookie[vertxCookies.size()];
       int idx = 0;
       for (io.vertx.core.http.Cookie oneVertxCookie : vertxCookies.values()) {
@@ -115,7 +219,7 @@ public class VertxServerRequestToHttpServletRequest extends AbstractHttpServletR
       return values == null ? null : values[0];
     }
 
-    return this.vertxRequest.getParam(name);
+    return vertxRequest().getParam(name);
   }
 
   @Override
@@ -124,7 +228,7 @@ public class VertxServerRequestToHttpServletRequest extends AbstractHttpServletR
       return Collections.enumeration(parameterMap.keySet());
     }
 
-    return Collections.enumeration(this.vertxRequest.params().names());
+    return Collections.enumeration(vertxRequest().params().names());
   }
 
   @Override
@@ -133,7 +237,7 @@ public class VertxServerRequestToHttpServletRequest extends AbstractHttpServletR
       return parameterMap.get(name);
     }
 
-    List<String> paramList = this.vertxRequest.params().getAll(name);
+    List<String> paramList = vertxRequest().params().getAll(name);
     return paramList.toArray(new String[paramList.size()]);
   }
 
@@ -141,7 +245,7 @@ public class VertxServerRequestToHttpServletRequest extends AbstractHttpServletR
   public Map<String, String[]> getParameterMap() {
     if (parameterMap == null) {
       Map<String, String[]> paramMap = new HashMap<>();
-      MultiMap map = this.vertxRequest.params();
+      MultiMap map = vertxRequest().params();
       for (String name : map.names()) {
         List<String> valueList = map.getAll(name);
         paramMap.put(name, map.getAll(name).toArray(new String[valueList.size()]));
@@ -159,57 +263,57 @@ public class VertxServerRequestToHttpServletRequest extends AbstractHttpServletR
       return;
     }
 
-    vertxRequest.params().set(name, value);
+    vertxRequest().params().set(name, value);
   }
 
   @Override
   public String getScheme() {
-    return this.vertxRequest.scheme();
+    return vertxRequest().scheme();
   }
 
   @Override
   public String getRemoteAddr() {
-    return this.socketAddress.host();
+    return remoteAddress().host();
   }
 
   @Override
   public String getRemoteHost() {
-    return this.socketAddress.host();
+    return remoteAddress().host();
   }
 
   @Override
   public int getRemotePort() {
-    return this.socketAddress.port();
+    return remoteAddress().port();
   }
 
   @Override
   public String getLocalAddr() {
-    return this.vertxRequest.localAddress().host();
+    return vertxRequest().localAddress().host();
   }
 
   @Override
   public int getLocalPort() {
-    return this.vertxRequest.localAddress().port();
+    return vertxRequest().localAddress().port();
   }
 
   @Override
   public String getHeader(String name) {
-    return this.vertxRequest.getHeader(name);
+    return vertxRequest().getHeader(name);
   }
 
   @Override
   public Enumeration<String> getHeaders(String name) {
-    return Collections.enumeration(this.vertxRequest.headers().getAll(name));
+    return Collections.enumeration(vertxRequest().headers().getAll(name));
   }
 
   @Override
   public Enumeration<String> getHeaderNames() {
-    return Collections.enumeration(vertxRequest.headers().names());
+    return Collections.enumeration(vertxRequest().headers().names());
   }
 
   @Override
   public int getIntHeader(String name) {
-    String header = this.vertxRequest.getHeader(name);
+    String header = vertxRequest().getHeader(name);
     if (header == null) {
       return -1;
     }
@@ -219,23 +323,23 @@ public class VertxServerRequestToHttpServletRequest extends AbstractHttpServletR
 
   @Override
   public String getMethod() {
-    return this.vertxRequest.method().name();
+    return vertxRequest().method().name();
   }
 
   @Override
   public String getPathInfo() {
-    return this.vertxRequest.path();
+    return vertxRequest().path();
   }
 
   @Override
   public String getQueryString() {
-    return this.vertxRequest.query();
+    return vertxRequest().query();
   }
 
   @Override
   public String getRequestURI() {
     if (this.path == null) {
-      this.path = vertxRequest.path();
+      this.path = vertxRequest().path();
     }
     return this.path;
   }
@@ -253,19 +357,94 @@ public class VertxServerRequestToHttpServletRequest extends AbstractHttpServletR
   @Override
   public ServletInputStream getInputStream() {
     if (inputStream == null) {
-      inputStream = new BufferInputStream(context.getBody().getByteBuf());
+      Buffer body = routingContext().getBody();
+      inputStream = new BufferInputStream(body == null ? Buffer.buffer().getByteBuf() : body.getByteBuf());
     }
     return inputStream;
   }
 
+  /**
+   * the response used by servlet, so that startAsync() can end it
+   */
+  public void setServletResponse(ServletResponse servletResponse) {
+    this.servletResponse = servletResponse;
+  }
+
+  public void setAsyncExecutor(Executor asyncExecutor) {
+    this.asyncExecutor = asyncExecutor;
+  }
+
+  @Override
+  public AsyncContext startAsync() {
+    if (servletResponse == null) {
+      servletResponse = new VertxServerResponseToHttpServletResponse(vertxContext, routingContext().response());
+    }
+    return doStartAsync(this, servletResponse, true);
+  }
+
+  @Override
+  public AsyncContext startAsync(ServletRequest servletRequest, ServletResponse servletResponse) {
+    return doStartAsync(servletRequest, servletResponse,
+        servletRequest == this && servletResponse == this.servletResponse);
+  }
+
+  private AsyncContext doStartAsync(ServletRequest servletRequest, ServletResponse servletResponse,
+      boolean original) {
+    if (vertxContext == null) {
+      throw new IllegalStateException("request is not created in vertx context, not support async.");
+    }
+    if (asyncContext != null && !asyncContext.isCompleted()) {
+      throw new IllegalStateException("async already started.");
+    }
+
+    asyncContext = new VertxAsyncContext(vertxContext, servletRequest, servletResponse, original, asyncExecutor);
+    registerCloseHandler();
+    return asyncContext;
+  }
+
+  // vertx response has only one closeHandler and no getter, so register once and notify the current async context
+  // startAsync again after dispatch must not replace it
+  private void registerCloseHandler() {
+    if (closeHandlerRegistered) {
+      return;
+    }
+
+    closeHandlerRegistered = true;
+    RoutingContext current = routingContext();
+    vertxContext.runOnContext(v -> current.response().closeHandler(closed -> {
+      // wrapper maybe recycled and reused by another request
+      if (context != current) {
+        return;
+      }
+
+      VertxAsyncContext currentAsyncContext = asyncContext;
+      if (currentAsyncContext != null) {
+        currentAsyncContext.onError(new IOException("connection closed before async complete."));
+      }
+    }));
+  }
+
+  @Override
+  public boolean isAsyncStarted() {
+    return asyncContext != null && !asyncContext.isCompleted();
+  }
+
+  @Override
+  public boolean isAsyncSupported() {
+    return vertxContext != null;
+  }
+
   @Override
   public AsyncContext getAsyncContext() {
-    return EMPTY_ASYNC_CONTEXT;
+    if (asyncContext == null) {
+      return EMPTY_ASYNC_CONTEXT;
+    }
+    return asyncContext;
   }
 
   @Override
   public Part getPart(String name) {
-    Optional<FileUpload> upload = context.fileUploads()
+    Optional<FileUpload> upload = routingContext().fileUploads()
         .stream()
         .filter(fileUpload -> fileUpload.name().equals(name))
         .findFirst();
@@ -280,12 +459,12 @@ public class VertxServerRequestToHttpServletRequest extends AbstractHttpServletR
 
   @Override
   public Collection<Part> getParts() {
-    Set<FileUpload> fileUploads = context.fileUploads();
+    Set<FileUpload> fileUploads = routingContext().fileUploads();
     return fileUploads.stream().map(FileUploadPart::new).collect(Collectors.toList());
   }
 
   public RoutingContext getContext() {
-    return context;
+    return routingContext();
   }
 
   @Override
@@ -39,70 +39,120 @@ public class VertxServerResponseToHttpServletResponse extends AbstractHttpServle
 
   private StatusType statusType;
 
+  // true after returned to VertxServletWrapperPool, any access to vertx response is a bug
+  private volatile boolean recycled;
+
   public VertxServerResponseToHttpServletResponse(HttpServerResponse serverResponse) {
-    this.context = Vertx.currentContext();
-    this.serverResponse = serverResponse;
+    this(Vertx.currentContext(), serverResponse);
+  }
 
+  // context of the request, can be created out of eventloop
+  public VertxServerResponseToHttpServletResponse(Context context, HttpServerResponse serverResponse) {
+    init(context, serverResponse);
+  }
+
+  // only used by VertxServletWrapperPool
+  VertxServerResponseToHttpServletResponse() {
+    recycled = true;
+  }
+
+  void init(Context context, HttpServerResponse serverResponse) {
     Objects.requireNonNull(context, "must run in vertx context.");
+
+    this.recycled = false;
+    this.context = context;
+    this.serverResponse = serverResponse;
+  }
+
+  // clear all state of the response, so it can be reused by another request
+  void recycle() {
+    recycled = true;
+    context = null;
+    serverResponse = null;
+    statusType = null;
+    setBodyBuffer(null);
+    clearAttributes();
+  }
+
+  boolean isRecycled() {
+    return recycled;
+  }
+
+  @Override
+  protected void checkNotRecycled() {
+    if (recycled) {
+      throw new IllegalStateException("response already recycled, can not be used after response ended.");
+    }
+  }
+
+  private HttpServerResponse serverResponse() {
+    checkNotRecycled();
+    return serverResponse;
   }
 
   @Override
   public void setContentType(String type) {
-    serverResponse.headers().set(HttpHeaders.CONTENT_TYPE, type);
+    serverResponse().headers().set(HttpHeaders.CONTENT_TYPE, type);
+  }
+
+  @Override
+  public void setStatus(int sc) {
+    serverResponse().setStatusCode(sc);
   }
 
   @Override
   @Deprecated
   public void setStatus(int sc, String sm) {
-    serverResponse.setStatusCode(sc);
-    serverResponse.setStatusMessage(sm);
+    serverResponse().setStatusCode(sc);
+    serverResponse().setStatusMessage(sm);
   }
 
   @Override
   public StatusType getStatusType() {
     if (statusType == null) {
-      statusType = new HttpStatus(serverResponse.getStatusCode(), serverResponse.getStatusMessage());
+      statusType = new HttpStatus(serverResponse().getStatusCode(), serverResponse().getStatusMessage());
     }
     return statusType;
   }
 
   @Override
   public void addHeader(String name, String value) {
-    serverResponse.headers().add(name, value);
+    serverResponse().headers().add(name, value);
   }
 
   @Override
   public void setHeader(String name, String value) {
-    serverResponse.headers().set(name, value);
+    serverResponse().headers().set(name, value);
   }
 
   @Override
   public int getStatus() {
-    return serverResponse.getStatusCode();
+    return serverResponse().getStatusCode();
   }
 
   @Override
   public String getContentType() {
-    return serverResponse.headers().get(HttpHeaders.CONTENT_TYPE);
+    return serverResponse().headers().get(HttpHeaders.CONTENT_TYPE);
   }
 
   @Override
   public String getHeader(String name) {
-    return serverResponse.headers().get(name);
+    return serverResponse().headers().get(name);
   }
 
   @Override
   public Collection<String> getHeaders(String name) {
-    return serverResponse.headers().getAll(name);
+    return serverResponse().headers().getAll(name);
   }
 
   @Override
   public Collection<String> getHeaderNames() {
-    return serverResponse.headers().names();
+    return serverResponse().headers().names();
   }
 
   @Override
   public void flushBuffer() {
+    checkNotRecycled();
     if (context == Vertx.currentContext()) {
       internalFlushBuffer();
       return;
@@ -115,22 +165,22 @@ public class VertxServerResponseToHttpServletResponse extends AbstractHttpServle
 
   public void internalFlushBuffer() {
     if (bodyBuffer == null) {
-      serverResponse.end();
+      serverResponse().end();
       return;
     }
 
-    serverResponse.end(bodyBuffer);
+    serverResponse().end(bodyBuffer);
   }
 
   @Override
   public CompletableFuture<Void> sendPart(Part part) {
     DownloadUtils.prepareDownloadHeader(this, part);
 
-    return new PumpFromPart(context, part).toWriteStream(serverResponse);
+    return new PumpFromPart(context, part).toWriteStream(serverResponse());
   }
 
   @Override
   public void setChunked(boolean chunked) {
-    serverResponse.setChunked(chunked);
+    serverResponse().setChunked(chunked);
   }
 }
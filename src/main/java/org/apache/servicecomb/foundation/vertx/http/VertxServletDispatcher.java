@@ -0,0 +1,225 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.servicecomb.foundation.vertx.http;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.Servlet;
+
+import org.apache.servicecomb.foundation.common.concurrent.ConcurrentHashMapEx;
+import org.apache.servicecomb.foundation.vertx.executor.BoundedWorkerExecutor;
+import org.apache.servicecomb.foundation.vertx.executor.VirtualThreadExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.vertx.core.Context;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.ext.web.RoutingContext;
+
+/**
+ * run blocking servlets in named and bounded worker pools, not in eventloop
+ * route is matched by the longest path prefix, request is answered by 503 when its pool is full
+ * pool can also be a VirtualThreadExecutor, then each request run in its own virtual thread
+ * request/response wrappers can be recycled by enableRecycle, then servlet must not hold them after response ended
+ */
+public class VertxServletDispatcher implements Handler<RoutingContext> {
+  private static final Logger LOGGER = LoggerFactory.getLogger(VertxServletDispatcher.class);
+
+  public static final String DEFAULT_POOL = "servlet-default";
+
+  private static class ServletRoute {
+    final String pathPrefix;
+
+    final Servlet servlet;
+
+    final String poolName;
+
+    ServletRoute(String pathPrefix, Servlet servlet, String poolName) {
+      this.pathPrefix = pathPrefix;
+      this.servlet = servlet;
+      this.poolName = poolName;
+    }
+  }
+
+  private final Vertx vertx;
+
+  private final Map<String, Executor> pools = new ConcurrentHashMapEx<>();
+
+  // ordered by length of pathPrefix desc
+  private final List<ServletRoute> routes = new CopyOnWriteArrayList<>();
+
+  // null means not recycle wrappers
+  private volatile VertxServletWrapperPool wrapperPool;
+
+  public VertxServletDispatcher(Vertx vertx, int defaultPoolSize, int defaultMaxQueueSize) {
+    this.vertx = vertx;
+    addPool(DEFAULT_POOL, defaultPoolSize, defaultMaxQueueSize);
+  }
+
+  public void addPool(String poolName, int poolSize, int maxQueueSize) {
+    pools.computeIfAbsent(poolName, name -> new BoundedWorkerExecutor(vertx, name, poolSize, maxQueueSize));
+  }
+
+  /**
+   * fallback to BoundedWorkerExecutor with poolSize=maxConcurrency if virtual thread is not supported by JDK
+   */
+  public void addVirtualThreadPool(String poolName, int maxConcurrency, int maxWaiting) {
+    if (!VirtualThreadExecutor.isSupported()) {
+      LOGGER.warn("virtual thread is not supported, pool {} fallback to worker pool.", poolName);
+      addPool(poolName, maxConcurrency, maxWaiting);
+      return;
+    }
+
+    pools.computeIfAbsent(poolName, name -> new VirtualThreadExecutor(name, maxConcurrency, maxWaiting));
+  }
+
+  /**
+   * executor must throw RejectedExecutionException when overloaded, so that request can be answered by 503
+   */
+  public void addPool(String poolName, Executor executor) {
+    pools.putIfAbsent(poolName, executor);
+  }
+
+  public Executor getPool(String poolName) {
+    return pools.get(poolName);
+  }
+
+  public Map<String, Executor> getPools() {
+    return pools;
+  }
+
+  /**
+   * opt-in, wrappers are recycled after response ended and servlet returned
+   */
+  public void enableRecycle(int maxSizePerEventLoop) {
+    wrapperPool = new VertxServletWrapperPool(maxSizePerEventLoop);
+  }
+
+  public VertxServletWrapperPool getWrapperPool() {
+    return wrapperPool;
+  }
+
+  public void addServlet(String pathPrefix, Servlet servlet) {
+    addServlet(pathPrefix, servlet, DEFAULT_POOL);
+  }
+
+  public void addServlet(String pathPrefix, Servlet servlet, String poolName) {
+    if (!pools.containsKey(poolName)) {
+      throw new IllegalArgumentException("worker pool not exists, name=" + poolName);
+    }
+
+    ServletRoute route = new ServletRoute(pathPrefix, servlet, poolName);
+    int idx = 0;
+    while (idx < routes.size() && routes.get(idx).pathPrefix.length() >= pathPrefix.length()) {
+      idx++;
+    }
+    routes.add(idx, route);
+  }
+
+  private ServletRoute findRoute(String path) {
+    for (ServletRoute route : routes) {
+      if (path.startsWith(route.pathPrefix)) {
+        return route;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * invoked in eventloop
+   */
+  @Override
+  public void handle(RoutingContext context) {
+    ServletRoute route = findRoute(context.request().path());
+    if (route == null) {
+      context.next();
+      return;
+    }
+
+    // create in eventloop, so that request body is subscribed before arrived
+    VertxServletWrapperPool wrapperPool = this.wrapperPool;
+    VertxServerRequestToHttpServletRequest request;
+    VertxServerResponseToHttpServletResponse response;
+    Runnable release = null;
+    if (wrapperPool == null) {
+      request = new VertxServerRequestToHttpServletRequest(context);
+      response = new VertxServerResponseToHttpServletResponse(context.response());
+    } else {
+      Context vertxContext = Vertx.currentContext();
+      request = wrapperPool.borrowRequest(context);
+      response = wrapperPool.borrowResponse(vertxContext, context.response());
+      release = createRelease(wrapperPool, vertxContext, context, request, response);
+    }
+    request.setServletResponse(response);
+    context.addBodyEndHandler(v -> request.closeBodyStream());
+
+    Executor executor = pools.get(route.poolName);
+    Runnable onServiceReturned = release;
+    try {
+      executor.execute(() -> service(route, request, response, onServiceReturned));
+    } catch (RejectedExecutionException e) {
+      LOGGER.warn("reject request {}, cause={}", context.request().path(), e.getMessage());
+      context.response().setStatusCode(503).end();
+      if (release != null) {
+        release.run();
+      }
+    }
+  }
+
+  // recycle when both response ended and servlet returned, because any of them can be the last one
+  private Runnable createRelease(VertxServletWrapperPool wrapperPool, Context vertxContext, RoutingContext context,
+      VertxServerRequestToHttpServletRequest request, VertxServerResponseToHttpServletResponse response) {
+    AtomicInteger refCount = new AtomicInteger(2);
+    Runnable release = () -> {
+      if (refCount.decrementAndGet() == 0) {
+        vertxContext.runOnContext(v -> wrapperPool.recycle(request, response));
+      }
+    };
+    context.addBodyEndHandler(v -> release.run());
+    return release;
+  }
+
+  // in worker pool
+  private void service(ServletRoute route, VertxServerRequestToHttpServletRequest request,
+      VertxServerResponseToHttpServletResponse response, Runnable onServiceReturned) {
+    boolean failed = false;
+    try {
+      route.servlet.service(request, response);
+    } catch (Throwable e) {
+      LOGGER.error("failed to process request {}.", request.getRequestURI(), e);
+      response.setStatus(500);
+      response.setBodyBuffer(null);
+      failed = true;
+    }
+
+    if (!request.isAsyncStarted()) {
+      response.flushBuffer();
+    } else if (failed) {
+      // failed servlet will never complete it, complete flushes the 500 response in context thread
+      request.getAsyncContext().complete();
+    }
+    if (onServiceReturned != null) {
+      onServiceReturned.run();
+    }
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.servicecomb.foundation.vertx.http;
+
+import java.util.ArrayDeque;
+
+import io.vertx.core.Context;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.ext.web.RoutingContext;
+
+/**
+ * reuse servlet request/response wrappers, to reduce allocation per request
+ * each eventloop has its own pool, so borrow and recycle need no lock, both must be invoked in eventloop
+ * borrow out of eventloop always create new instance, and recycle out of eventloop is ignored
+ *
+ * wrapper must not be used after recycled, any access to vertx request/response will throw IllegalStateException
+ */
+public class VertxServletWrapperPool {
+  private static class LocalPool {
+    final ArrayDeque<VertxServerRequestToHttpServletRequest> requests = new ArrayDeque<>();
+
+    final ArrayDeque<VertxServerResponseToHttpServletResponse> responses = new ArrayDeque<>();
+  }
+
+  private final int maxSizePerEventLoop;
+
+  private final ThreadLocal<LocalPool> localPool = ThreadLocal.withInitial(LocalPool::new);
+
+  public VertxServletWrapperPool(int maxSizePerEventLoop) {
+    this.maxSizePerEventLoop = maxSizePerEventLoop;
+  }
+
+  public int getMaxSizePerEventLoop() {
+    return maxSizePerEventLoop;
+  }
+
+  public VertxServerRequestToHttpServletRequest borrowRequest(RoutingContext context) {
+    if (!Context.isOnEventLoopThread()) {
+      return new VertxServerRequestToHttpServletRequest(context);
+    }
+
+    VertxServerRequestToHttpServletRequest request = localPool.get().requests.pollFirst();
+    if (request == null) {
+      return new VertxServerRequestToHttpServletRequest(context);
+    }
+
+    request.init(context);
+    return request;
+  }
+
+  public VertxServerResponseToHttpServletResponse borrowResponse(Context context,
+      HttpServerResponse serverResponse) {
+    if (!Context.isOnEventLoopThread()) {
+      return new VertxServerResponseToHttpServletResponse(context, serverResponse);
+    }
+
+    VertxServerResponseToHttpServletResponse response = localPool.get().responses.pollFirst();
+    if (response == null) {
+      return new VertxServerResponseToHttpServletResponse(context, serverResponse);
+    }
+
+    response.init(context, serverResponse);
+    return response;
+  }
+
+  /**
+   * invoked in eventloop after response ended and servlet returned
+   */
+  public void recycle(VertxServerRequestToHttpServletRequest request,
+      VertxServerResponseToHttpServletResponse response) {
+    if (!Context.isOnEventLoopThread()) {
+      return;
+    }
+
+    LocalPool pool = localPool.get();
+    // recycle twice will make one instance be used by 2 requests
+    if (!request.isRecycled()) {
+      request.recycle();
+      if (pool.requests.size() < maxSizePerEventLoop) {
+        pool.requests.offerFirst(request);
+      }
+    }
+    if (!response.isRecycled()) {
+      response.recycle();
+      if (pool.responses.size() < maxSizePerEventLoop) {
+        pool.responses.offerFirst(response);
+      }
+    }
+  }
+}
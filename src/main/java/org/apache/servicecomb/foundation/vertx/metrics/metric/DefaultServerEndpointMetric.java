@@ -21,6 +21,16 @@ import java.util.concurrent.atomic.LongAdder;
 public class DefaultServerEndpointMetric extends DefaultEndpointMetric {
   private LongAdder rejectByConnectionLimitCount = new LongAdder();
 
+  // package bigger than TcpReadConfig limits, the connection is closed
+  private LongAdder rejectByFrameLimitCount = new LongAdder();
+
+  private LongAdder pausedByMemoryBudgetCount = new LongAdder();
+
+  // shed by admission control
+  private LongAdder rejectByOverloadCount = new LongAdder();
+
+  private LongAdder pausedByMemoryBudgetTime = new LongAdder();
+
   public DefaultServerEndpointMetric(String address) {
     super(address);
   }
@@ -32,4 +42,37 @@ public class DefaultServerEndpointMetric extends DefaultEndpointMetric {
   public void onRejectByConnectionLimit() {
     rejectByConnectionLimitCount.increment();
   }
+
+  public long getRejectByFrameLimitCount() {
+    return rejectByFrameLimitCount.longValue();
+  }
+
+  public void onRejectByFrameLimit() {
+    rejectByFrameLimitCount.increment();
+  }
+
+  public long getPausedByMemoryBudgetCount() {
+    return pausedByMemoryBudgetCount.longValue();
+  }
+
+  public void onPausedByMemoryBudget() {
+    pausedByMemoryBudgetCount.increment();
+  }
+
+  // nanoseconds
+  public long getPausedByMemoryBudgetTime() {
+    return pausedByMemoryBudgetTime.longValue();
+  }
+
+  public void addPausedByMemoryBudgetTime(long nanos) {
+    pausedByMemoryBudgetTime.add(nanos);
+  }
+
+  public long getRejectByOverloadCount() {
+    return rejectByOverloadCount.longValue();
+  }
+
+  public void onRejectByOverload() {
+    rejectByOverloadCount.increment();
+  }
 }
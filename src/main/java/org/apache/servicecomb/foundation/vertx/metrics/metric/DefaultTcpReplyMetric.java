@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.servicecomb.foundation.vertx.metrics.metric;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * replies delivered to caller context by TcpReplyDispatcher
+ */
+public class DefaultTcpReplyMetric {
+  private LongAdder replyCount = new LongAdder();
+
+  // sum of nanoseconds from reply decoded to callback invoked
+  private LongAdder hopTime = new LongAdder();
+
+  // tasks submitted to caller context, replyCount / batchCount is the average batch size
+  private LongAdder batchCount = new LongAdder();
+
+  private volatile int maxBatchSize;
+
+  public void onBatch(int batchSize, long batchHopTime) {
+    batchCount.increment();
+    replyCount.add(batchSize);
+    hopTime.add(batchHopTime);
+    if (batchSize > maxBatchSize) {
+      maxBatchSize = batchSize;
+    }
+  }
+
+  public long getReplyCount() {
+    return replyCount.longValue();
+  }
+
+  public long getHopTime() {
+    return hopTime.longValue();
+  }
+
+  public long getBatchCount() {
+    return batchCount.longValue();
+  }
+
+  public int getMaxBatchSize() {
+    return maxBatchSize;
+  }
+}
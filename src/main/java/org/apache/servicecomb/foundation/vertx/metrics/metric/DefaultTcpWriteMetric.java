@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.servicecomb.foundation.vertx.metrics.metric;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * write side of one TcpConnection
+ * queue depth is not here, it's real time value, get it from TcpConnection
+ */
+public class DefaultTcpWriteMetric {
+  private LongAdder flushCount = new LongAdder();
+
+  private LongAdder flushBytes = new LongAdder();
+
+  private LongAdder flushComponents = new LongAdder();
+
+  private LongAdder rejectCount = new LongAdder();
+
+  // time of socket writeQueueFull, until drained
+  private LongAdder socketStallTime = new LongAdder();
+
+  // time of sender threads blocked by BLOCK policy
+  private LongAdder senderBlockTime = new LongAdder();
+
+  public long getFlushCount() {
+    return flushCount.longValue();
+  }
+
+  public long getFlushBytes() {
+    return flushBytes.longValue();
+  }
+
+  public long getFlushComponents() {
+    return flushComponents.longValue();
+  }
+
+  public void onFlush(int bytes, int components) {
+    flushCount.increment();
+    flushBytes.add(bytes);
+    flushComponents.add(components);
+  }
+
+  public long getRejectCount() {
+    return rejectCount.longValue();
+  }
+
+  public void onReject() {
+    rejectCount.increment();
+  }
+
+  public long getSocketStallTime() {
+    return socketStallTime.longValue();
+  }
+
+  public void addSocketStallTime(long nanoTime) {
+    socketStallTime.add(nanoTime);
+  }
+
+  public long getSenderBlockTime() {
+    return senderBlockTime.longValue();
+  }
+
+  public void addSenderBlockTime(long nanoTime) {
+    senderBlockTime.add(nanoTime);
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.servicecomb.foundation.vertx.metrics.metric;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * tasks of BoundedWorkerExecutor or VirtualThreadExecutor, queue time and execute time are recorded separately
+ */
+public class DefaultWorkerPoolMetric {
+  private final String name;
+
+  private LongAdder submittedCount = new LongAdder();
+
+  private LongAdder rejectedCount = new LongAdder();
+
+  private LongAdder completedCount = new LongAdder();
+
+  // sum of nanoseconds from submitted to start execute
+  private LongAdder queueTime = new LongAdder();
+
+  // sum of nanoseconds of execute
+  private LongAdder executeTime = new LongAdder();
+
+  public DefaultWorkerPoolMetric(String name) {
+    this.name = name;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public void onSubmitted() {
+    submittedCount.increment();
+  }
+
+  public void onRejected() {
+    rejectedCount.increment();
+  }
+
+  public void onCompleted(long nsQueueTime, long nsExecuteTime) {
+    completedCount.increment();
+    queueTime.add(nsQueueTime);
+    executeTime.add(nsExecuteTime);
+  }
+
+  public long getSubmittedCount() {
+    return submittedCount.longValue();
+  }
+
+  public long getRejectedCount() {
+    return rejectedCount.longValue();
+  }
+
+  public long getCompletedCount() {
+    return completedCount.longValue();
+  }
+
+  public long getQueueTime() {
+    return queueTime.longValue();
+  }
+
+  public long getExecuteTime() {
+    return executeTime.longValue();
+  }
+}
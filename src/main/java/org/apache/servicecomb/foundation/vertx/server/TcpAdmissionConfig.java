@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.servicecomb.foundation.vertx.server;
+
+/**
+ * AIMD limit of in-flight requests of one TcpServer
+ * limit grows by about 1 every round trip when latency is good, and multiply by backoffRatio when too slow
+ */
+public class TcpAdmissionConfig {
+  private int initialLimit = 100;
+
+  private int minLimit = 10;
+
+  private int maxLimit = 10000;
+
+  // latency of a request, from received to replied
+  private long msTargetLatency = 100;
+
+  private double backoffRatio = 0.9;
+
+  // pause reading of a connection when its in-flight requests reach this, resume at half
+  private int maxInflightPerConnection = 1000;
+
+  // reject requests of connections in this eventloop when lag of it exceeds this
+  private long msMaxEventLoopLag = 200;
+
+  private long msLagProbeInterval = 100;
+
+  public int getInitialLimit() {
+    return initialLimit;
+  }
+
+  public void setInitialLimit(int initialLimit) {
+    this.initialLimit = initialLimit;
+  }
+
+  public int getMinLimit() {
+    return minLimit;
+  }
+
+  public void setMinLimit(int minLimit) {
+    this.minLimit = minLimit;
+  }
+
+  public int getMaxLimit() {
+    return maxLimit;
+  }
+
+  public void setMaxLimit(int maxLimit) {
+    this.maxLimit = maxLimit;
+  }
+
+  public long getMsTargetLatency() {
+    return msTargetLatency;
+  }
+
+  public void setMsTargetLatency(long msTargetLatency) {
+    this.msTargetLatency = msTargetLatency;
+  }
+
+  public double getBackoffRatio() {
+    return backoffRatio;
+  }
+
+  public void setBackoffRatio(double backoffRatio) {
+    this.backoffRatio = backoffRatio;
+  }
+
+  public int getMaxInflightPerConnection() {
+    return maxInflightPerConnection;
+  }
+
+  public void setMaxInflightPerConnection(int maxInflightPerConnection) {
+    this.maxInflightPerConnection = maxInflightPerConnection;
+  }
+
+  public long getMsMaxEventLoopLag() {
+    return msMaxEventLoopLag;
+  }
+
+  public void setMsMaxEventLoopLag(long msMaxEventLoopLag) {
+    this.msMaxEventLoopLag = msMaxEventLoopLag;
+  }
+
+  public long getMsLagProbeInterval() {
+    return msLagProbeInterval;
+  }
+
+  public void setMsLagProbeInterval(long msLagProbeInterval) {
+    this.msLagProbeInterval = msLagProbeInterval;
+  }
+}
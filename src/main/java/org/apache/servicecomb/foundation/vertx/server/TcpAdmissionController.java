@@ -0,0 +1,205 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.servicecomb.foundation.vertx.server;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.servicecomb.foundation.common.concurrent.ConcurrentHashMapEx;
+
+import io.vertx.core.Context;
+
+/**
+ * shared by all connections of one TcpServer
+ * reject requests fast when overloaded, instead of let all of them timeout
+ */
+public class TcpAdmissionController {
+  // measure delay of a periodic timer in one eventloop
+  static class LagProbe {
+    private final Context context;
+
+    private final long nsInterval;
+
+    private long lastFire = System.nanoTime();
+
+    private volatile long nsLag;
+
+    private volatile long timerId = -1;
+
+    private volatile boolean closed;
+
+    LagProbe(Context context, long msInterval) {
+      this.context = context;
+      this.nsInterval = TimeUnit.MILLISECONDS.toNanos(msInterval);
+      // periodic timer is bound to current context
+      context.runOnContext(v -> {
+        if (!closed) {
+          timerId = context.owner().setPeriodic(msInterval, id -> onFire());
+        }
+      });
+    }
+
+    void close() {
+      context.runOnContext(v -> {
+        closed = true;
+        if (timerId != -1) {
+          context.owner().cancelTimer(timerId);
+          timerId = -1;
+        }
+      });
+    }
+
+    private void onFire() {
+      long now = System.nanoTime();
+      nsLag = Math.max(0, now - lastFire - nsInterval);
+      lastFire = now;
+    }
+
+    long getNsLag() {
+      return nsLag;
+    }
+  }
+
+  private final TcpAdmissionConfig config;
+
+  private final long nsTargetLatency;
+
+  private final long nsMaxEventLoopLag;
+
+  private final AtomicInteger inflight = new AtomicInteger();
+
+  // bits of double
+  private final AtomicLong limit = new AtomicLong();
+
+  private volatile long lastDecreaseTime;
+
+  private final Map<Context, LagProbe> lagProbes = new ConcurrentHashMapEx<>();
+
+  public TcpAdmissionController(TcpAdmissionConfig config) {
+    this.config = config;
+    this.nsTargetLatency = TimeUnit.MILLISECONDS.toNanos(config.getMsTargetLatency());
+    this.nsMaxEventLoopLag = TimeUnit.MILLISECONDS.toNanos(config.getMsMaxEventLoopLag());
+    this.limit.set(Double.doubleToLongBits(config.getInitialLimit()));
+  }
+
+  public TcpAdmissionConfig getConfig() {
+    return config;
+  }
+
+  public int getInflight() {
+    return inflight.get();
+  }
+
+  public int getLimit() {
+    return (int) Double.longBitsToDouble(limit.get());
+  }
+
+  /**
+   * start probe lag of the eventloop of context, once for each context
+   */
+  public void registerContext(Context context) {
+    lagProbes.computeIfAbsent(context, ctx -> new LagProbe(ctx, config.getMsLagProbeInterval()));
+  }
+
+  /**
+   * stop all lag probes, invoked when the server closed or failed to listen
+   */
+  public void close() {
+    lagProbes.values().forEach(LagProbe::close);
+    lagProbes.clear();
+  }
+
+  public long getEventLoopLag(Context context) {
+    LagProbe probe = lagProbes.get(context);
+    return probe == null ? 0 : probe.getNsLag();
+  }
+
+  /**
+   * @return false if should shed the request
+   */
+  public boolean tryAcquire(Context context) {
+    if (getEventLoopLag(context) > nsMaxEventLoopLag) {
+      return false;
+    }
+
+    for (; ; ) {
+      int current = inflight.get();
+      if (current >= getLimit()) {
+        return false;
+      }
+
+      if (inflight.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * must be invoked once for each acquired request
+   */
+  public void release(long nsLatency) {
+    int current = inflight.getAndDecrement();
+    if (nsLatency > nsTargetLatency) {
+      decrease();
+      return;
+    }
+
+    increase(current);
+  }
+
+  /**
+   * request will never reply, eg: connection closed, not affect the limit
+   */
+  public void abandon() {
+    inflight.decrementAndGet();
+  }
+
+  private void decrease() {
+    // at most once in a latency window, a burst of slow requests only decrease once
+    long now = System.nanoTime();
+    if (now - lastDecreaseTime < nsTargetLatency) {
+      return;
+    }
+    lastDecreaseTime = now;
+
+    for (; ; ) {
+      long bits = limit.get();
+      double newLimit = Math.max(config.getMinLimit(), Double.longBitsToDouble(bits) * config.getBackoffRatio());
+      if (limit.compareAndSet(bits, Double.doubleToLongBits(newLimit))) {
+        return;
+      }
+    }
+  }
+
+  private void increase(int inflightWhenComplete) {
+    for (; ; ) {
+      long bits = limit.get();
+      double oldLimit = Double.longBitsToDouble(bits);
+      // limit not used, not prove anything
+      if (inflightWhenComplete < oldLimit / 2 || oldLimit >= config.getMaxLimit()) {
+        return;
+      }
+
+      double newLimit = Math.min(config.getMaxLimit(), oldLimit + 1 / oldLimit);
+      if (limit.compareAndSet(bits, Double.doubleToLongBits(newLimit))) {
+        return;
+      }
+    }
+  }
+}
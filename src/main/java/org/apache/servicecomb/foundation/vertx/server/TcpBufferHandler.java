@@ -22,7 +22,8 @@ import io.vertx.core.buffer.Buffer;
 /**
  * TcpBufferHandler
  *
- *
+ * headerBuffer and bodyBuffer share the received bytes when possible, not copies
+ * they are heap buffers reclaimed by gc, handler need not release them, and must not modify them
  */
 public interface TcpBufferHandler {
   void handle(long msgId, Buffer headerBuffer, Buffer bodyBuffer);
@@ -19,21 +19,44 @@ package org.apache.servicecomb.foundation.vertx.server;
 
 import java.io.UnsupportedEncodingException;
 
+import org.apache.servicecomb.foundation.vertx.metrics.metric.DefaultServerEndpointMetric;
+import org.apache.servicecomb.foundation.vertx.tcp.TcpConst;
+import org.apache.servicecomb.foundation.vertx.tcp.TcpMemoryBudget;
+import org.apache.servicecomb.foundation.vertx.tcp.TcpReadControl;
+import org.apache.servicecomb.foundation.vertx.tcp.TcpReadConfig;
+import org.apache.servicecomb.foundation.vertx.tcp.compress.FrameCompressor;
+import org.apache.servicecomb.foundation.vertx.tcp.header.TcpHeaderDecoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.vertx.core.Context;
 import io.vertx.core.Handler;
 import io.vertx.core.buffer.Buffer;
-import io.vertx.core.parsetools.RecordParser;
+import io.vertx.core.net.NetSocket;
 
 /**
  * TcpParser
  *
- *
+ * keep one cumulative ByteBuf per connection, read header in place
+ * output buffers share the backing array of received bytes, only copy when a package is not contiguous
+ * so handlers need not release them
  */
 public class TcpParser implements Handler<Buffer> {
+  private static final Logger LOGGER = LoggerFactory.getLogger(TcpParser.class);
+
   public static final byte[] TCP_MAGIC;
 
   public static final int TCP_HEADER_LENGTH = 23;
 
+  public static final int MSG_ID_OFFSET = 7;
+
+  public static final int TOTAL_LEN_OFFSET = 15;
+
+  public static final int HEADER_LEN_OFFSET = 19;
+
   static {
     try {
       TCP_MAGIC = "CSE.TCP".getBytes("UTF-8");
@@ -42,38 +65,244 @@ public class TcpParser implements Handler<Buffer> {
     }
   }
 
-  enum ParseStatus {
-    TCP_HEADER,
-    TCP_PAYLOAD
-  }
-
   private TcpBufferHandler outputHandler;
 
-  private RecordParser parser;
+  // bytes received but not consumed yet
+  // null if nothing pending, so whole packages in one read need not any cumulation
+  private ByteBuf cumulation;
+
+  // negotiated in login, null means not compressed
+  private volatile FrameCompressor frameCompressor;
+
+  // negotiated in login, null means header is not encoded by TcpHeaderEncoder
+  private volatile TcpHeaderDecoder headerDecoder;
+
+  // null means not support streaming message
+  private TcpStreamFrameHandler streamHandler;
 
-  private ParseStatus status;
+  // not null means forward packages without decode
+  private TcpRawFrameHandler rawFrameHandler;
 
-  private long msgId;
+  // null means ignore control packages
+  private TcpControlHandler controlHandler;
 
-  // 仅仅是header + body，不包括headerLen本身
-  private int totalLen;
+  private TcpReadConfig readConfig = new TcpReadConfig();
 
-  private int headerLen;
+  // to close or pause the socket, null means only check limits, not use memory budget
+  private NetSocket netSocket;
+
+  private Context context;
+
+  // shared with other features pause the socket
+  private TcpReadControl readControl;
+
+  // server only
+  private DefaultServerEndpointMetric endpointMetric;
+
+  // reserved from memory budget for the incomplete package
+  private long reservedBytes;
+
+  private boolean waitingBudget;
+
+  private long waitBudgetTime;
+
+  // not null when waiting budget
+  private TcpMemoryBudget.Waiter budgetWaiter;
+
+  private long waitBudgetTimerId = -1;
+
+  private boolean closed;
 
   public TcpParser(TcpBufferHandler output) {
     this.outputHandler = output;
+  }
 
-    reset();
+  public void setFrameCompressor(FrameCompressor frameCompressor) {
+    this.frameCompressor = frameCompressor;
+  }
+
+  public void setHeaderDecoder(TcpHeaderDecoder headerDecoder) {
+    this.headerDecoder = headerDecoder;
+  }
+
+  public void setStreamHandler(TcpStreamFrameHandler streamHandler) {
+    this.streamHandler = streamHandler;
+  }
+
+  public void setRawFrameHandler(TcpRawFrameHandler rawFrameHandler) {
+    this.rawFrameHandler = rawFrameHandler;
+  }
+
+  public void setControlHandler(TcpControlHandler controlHandler) {
+    this.controlHandler = controlHandler;
+  }
+
+  public void setReadConfig(TcpReadConfig readConfig) {
+    this.readConfig = readConfig;
   }
 
   /**
-   * 在解析出错时，通过重新创建parser对象，将整个缓冲区重置
+   * after bind, socket will be closed when got invalid package, and paused when memory budget exceeded
+   */
+  public void bindSocket(NetSocket netSocket, Context context) {
+    bindSocket(netSocket, context, new TcpReadControl(context, netSocket));
+  }
+
+  public void bindSocket(NetSocket netSocket, Context context, TcpReadControl readControl) {
+    this.netSocket = netSocket;
+    this.context = context;
+    this.readControl = readControl;
+  }
+
+  public void setEndpointMetric(DefaultServerEndpointMetric endpointMetric) {
+    this.endpointMetric = endpointMetric;
+  }
+
+  /**
+   * 在解析出错时，将整个缓冲区重置
    */
   protected void reset() {
-    parser = RecordParser.newFixed(TCP_HEADER_LENGTH, this::onParse);
-    status = ParseStatus.TCP_HEADER;
+    if (cumulation != null) {
+      cumulation.release();
+      cumulation = null;
+    }
+    releaseReserved();
+  }
+
+  /**
+   * release bytes of incomplete package, should be invoked when the connection closed
+   */
+  public void release() {
+    closed = true;
+    cancelWaitBudget();
+    reset();
+  }
+
+  // header table of both sides are not the same any more, all following packages can not be decoded
+  // error already logged, close the connection, client will reconnect and negotiate again
+  private void closeOnDecodeFailed() {
+    reset();
+    if (netSocket != null) {
+      LOGGER.error("close connection because decode failed, address={}.", netSocket.remoteAddress());
+      netSocket.close();
+    }
+  }
+
+  private void reject(String reason, long msgId, int len) {
+    LOGGER.error("{}, msgId={}, len={}, address={}.",
+        reason,
+        msgId,
+        len,
+        netSocket == null ? null : netSocket.remoteAddress());
+    if (endpointMetric != null) {
+      endpointMetric.onRejectByFrameLimit();
+    }
+
+    reset();
+    if (netSocket != null) {
+      netSocket.close();
+    }
+  }
+
+  // reserve once for each incomplete package
+  private boolean reserve(int totalLen) {
+    if (reservedBytes != 0 || netSocket == null) {
+      return true;
+    }
+
+    TcpMemoryBudget budget = readConfig.getMemoryBudget();
+    if (budget == null) {
+      return true;
+    }
+
+    long bytes = TCP_HEADER_LENGTH + (long) totalLen;
+    if (budget.tryReserve(bytes)) {
+      reservedBytes = bytes;
+      return true;
+    }
+
+    waitingBudget = true;
+    waitBudgetTime = System.nanoTime();
+    readControl.pause();
+    if (endpointMetric != null) {
+      endpointMetric.onPausedByMemoryBudget();
+    }
+    budgetWaiter = budget.waitAvailable(bytes, () -> context.runOnContext(v -> onBudgetAvailable(bytes)));
+    long msTimeout = readConfig.getMsMemoryBudgetWaitTimeout();
+    if (msTimeout > 0) {
+      waitBudgetTimerId = context.owner().setTimer(msTimeout, id -> onWaitBudgetTimeout(msTimeout));
+    }
+    return false;
+  }
+
+  private void cancelWaitBudgetTimer() {
+    if (waitBudgetTimerId != -1) {
+      context.owner().cancelTimer(waitBudgetTimerId);
+      waitBudgetTimerId = -1;
+    }
+  }
+
+  // if bytes already reserved, onBudgetAvailable will release them because of closed
+  private void cancelWaitBudget() {
+    cancelWaitBudgetTimer();
+    if (budgetWaiter == null) {
+      return;
+    }
+
+    if (readConfig.getMemoryBudget().cancelWait(budgetWaiter)) {
+      budgetWaiter = null;
+      waitingBudget = false;
+    }
+  }
+
+  // the connection is paused too long, maybe blocked by a stalled connection hold the budget
+  // give up this connection instead of waiting forever
+  private void onWaitBudgetTimeout(long msTimeout) {
+    waitBudgetTimerId = -1;
+    if (budgetWaiter == null || !readConfig.getMemoryBudget().cancelWait(budgetWaiter)) {
+      // bytes already reserved, onBudgetAvailable is on the way
+      return;
+    }
+
+    budgetWaiter = null;
+    waitingBudget = false;
+    if (endpointMetric != null) {
+      endpointMetric.addPausedByMemoryBudgetTime(System.nanoTime() - waitBudgetTime);
+    }
+    LOGGER.error("wait memory budget timeout, close connection, timeout={}ms, address={}.",
+        msTimeout,
+        netSocket.remoteAddress());
+    reset();
+    netSocket.close();
+  }
+
+  private void releaseReserved() {
+    if (reservedBytes == 0) {
+      return;
+    }
 
-    parser.handle(Buffer.buffer(0));
+    long bytes = reservedBytes;
+    reservedBytes = 0;
+    readConfig.getMemoryBudget().release(bytes);
+  }
+
+  // bytes already reserved by the budget for this parser
+  private void onBudgetAvailable(long bytes) {
+    cancelWaitBudgetTimer();
+    budgetWaiter = null;
+    waitingBudget = false;
+    reservedBytes = bytes;
+    if (endpointMetric != null) {
+      endpointMetric.addPausedByMemoryBudgetTime(System.nanoTime() - waitBudgetTime);
+    }
+    if (closed) {
+      releaseReserved();
+      return;
+    }
+
+    parse();
+    // pair with pause of this wait, if wait again in parse, it's paused by the new wait
+    readControl.resume();
   }
 
   public boolean firstNEqual(byte[] a, byte[] b, int n) {
@@ -87,48 +316,260 @@ public class TcpParser implements Handler<Buffer> {
     return true;
   }
 
-  protected void onParse(Buffer buffer) {
-    switch (status) {
-      case TCP_HEADER:
-        ByteBuf buf = buffer.getByteBuf();
-        if (!firstNEqual(TCP_MAGIC, buf.array(), TCP_MAGIC.length)) {
+  // not use array(), direct buffer has no backing array
+  protected boolean isMagicMatched(ByteBuf buf, int idx) {
+    for (int i = 0; i < TCP_MAGIC.length; i++) {
+      if (buf.getByte(idx + i) != TCP_MAGIC[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // take over the reference of buf, vertx will not use it any more after call handler
+  public void handle(Buffer buf) {
+    ByteBuf byteBuf = buf.getByteBuf();
+    if (!byteBuf.isReadable()) {
+      byteBuf.release();
+      return;
+    }
+
+    cumulate(byteBuf);
+    parse();
+  }
+
+  private void cumulate(ByteBuf byteBuf) {
+    if (cumulation == null) {
+      cumulation = byteBuf;
+      return;
+    }
+
+    CompositeByteBuf composite;
+    if (cumulation instanceof CompositeByteBuf) {
+      composite = (CompositeByteBuf) cumulation;
+    } else {
+      composite = cumulation.alloc().compositeBuffer(Integer.MAX_VALUE);
+      composite.addComponent(true, cumulation);
+      cumulation = composite;
+    }
+    composite.addComponent(true, byteBuf);
+  }
+
+  protected void parse() {
+    while (!waitingBudget && cumulation != null && cumulation.readableBytes() >= TCP_HEADER_LENGTH) {
+      int idx = cumulation.readerIndex();
+      if (!isMagicMatched(cumulation, idx)) {
+        reset();
+        return;
+      }
+
+      // 仅仅是header + body，不包括headerLen本身
+      int totalLen = cumulation.getInt(idx + TOTAL_LEN_OFFSET);
+      long msgId = cumulation.getLong(idx + MSG_ID_OFFSET);
+      int headerLenField = cumulation.getInt(idx + HEADER_LEN_OFFSET);
+      int flags = headerLenField & TcpConst.FLAGS_MASK;
+      int headerLen = headerLenField & TcpConst.HEADER_LEN_MASK;
+      if (totalLen < 0 || ((flags & TcpConst.FLAG_COMPRESSED) == 0 && headerLen > totalLen)) {
+        reset();
+        return;
+      }
+
+      // check before wait body, not allocate for invalid package
+      if (totalLen > readConfig.getMaxFrameSize()) {
+        reject("package too large", msgId, totalLen);
+        return;
+      }
+      if (headerLen > readConfig.getMaxHeaderLength()) {
+        reject("package header too large", msgId, headerLen);
+        return;
+      }
+
+      if (cumulation.readableBytes() - TCP_HEADER_LENGTH < totalLen) {
+        reserve(totalLen);
+        break;
+      }
+
+      // whole package received, it's held by handler now
+      releaseReserved();
+      if (rawFrameHandler != null && handleRawFrame(msgId, flags, idx, TCP_HEADER_LENGTH + totalLen)) {
+        cumulation.skipBytes(TCP_HEADER_LENGTH + totalLen);
+        continue;
+      }
+
+      cumulation.skipBytes(TCP_HEADER_LENGTH);
+      if (totalLen == 0 && flags == 0) {
+        outputHandler.handle(msgId, null, null);
+        continue;
+      }
+
+      if ((flags & TcpConst.CONTROL_FLAGS) != 0) {
+        cumulation.skipBytes(totalLen);
+        if (controlHandler != null) {
+          controlHandler.handle(msgId, flags);
+        }
+        continue;
+      }
+
+      if ((flags & (TcpConst.FLAG_STREAM | TcpConst.FLAG_STREAM_CHUNK)) != 0) {
+        if (streamHandler == null) {
+          LOGGER.error("receive streaming package but not supported, msgId={}.", msgId);
           reset();
           return;
         }
 
-        buf.skipBytes(TCP_MAGIC.length);
-        msgId = buf.readLong();
-        totalLen = buf.readInt();
-        headerLen = buf.readInt();
+        if (headerLen != 0 && !learnHeader(msgId, cumulation.slice(cumulation.readerIndex(), headerLen))) {
+          closeOnDecodeFailed();
+          return;
+        }
+        Buffer headerBuffer = headerLen == 0 ? null : readBuffer(cumulation, headerLen);
+        Buffer bodyBuffer = totalLen == headerLen ? null : readBuffer(cumulation, totalLen - headerLen);
+        streamHandler.handle(msgId, flags, headerBuffer, bodyBuffer);
+        continue;
+      }
 
-        if (totalLen == 0) {
-          onReadOnePackage(null, null);
+      if ((flags & TcpConst.FLAG_COMPRESSED) != 0) {
+        if (!handleCompressed(msgId, headerLen, totalLen)) {
+          closeOnDecodeFailed();
           return;
         }
+        continue;
+      }
 
-        parser.fixedSizeMode(totalLen);
-        status = ParseStatus.TCP_PAYLOAD;
-        break;
+      if (!learnHeader(msgId, cumulation.slice(cumulation.readerIndex(), headerLen))) {
+        closeOnDecodeFailed();
+        return;
+      }
+      Buffer headerBuffer = readBuffer(cumulation, headerLen);
+      Buffer bodyBuffer = readBuffer(cumulation, totalLen - headerLen);
+      outputHandler.handle(msgId, headerBuffer, bodyBuffer);
+    }
 
-      case TCP_PAYLOAD:
-        Buffer headerBuffer = buffer.slice(0, headerLen);
-        Buffer bodyBuffer = buffer.slice(headerLen, buffer.length());
-        onReadOnePackage(headerBuffer, bodyBuffer);
-        break;
+    discardReadBytes();
+  }
 
-      default:
-        break;
+  private boolean handleRawFrame(long msgId, int flags, int idx, int len) {
+    ByteBuf frame = retainedRawFrame(idx, len);
+    try {
+      return rawFrameHandler.handle(msgId, flags, frame);
+    } finally {
+      frame.release();
     }
   }
 
-  private void onReadOnePackage(Buffer headerBuffer, Buffer bodyBuffer) {
+  // handler maybe retain the frame until written to another socket
+  // index based slice of a CompositeByteBuf is broken by discardReadComponents, so slice the component or copy
+  private ByteBuf retainedRawFrame(int idx, int len) {
+    if (!(cumulation instanceof CompositeByteBuf)) {
+      return cumulation.retainedSlice(idx, len);
+    }
+
+    CompositeByteBuf composite = (CompositeByteBuf) cumulation;
+    int componentIdx = composite.toComponentIndex(idx);
+    int componentStart = composite.toByteIndex(componentIdx);
+    ByteBuf component = composite.component(componentIdx);
+    if (idx + len <= componentStart + component.readableBytes()) {
+      return component.retainedSlice(component.readerIndex() + idx - componentStart, len);
+    }
+
+    // frame crosses received buffers
+    return composite.copy(idx, len);
+  }
+
+  private boolean handleCompressed(long msgId, int headerLen, int totalLen) {
+    FrameCompressor compressor = frameCompressor;
+    if (compressor == null || totalLen < Integer.BYTES) {
+      LOGGER.error("receive compressed package but compression not negotiated or invalid, msgId={}.", msgId);
+      return false;
+    }
+
+    int uncompressedLen = cumulation.readInt();
+    if (uncompressedLen > readConfig.getMaxFrameSize()) {
+      reject("uncompressed package too large", msgId, uncompressedLen);
+      return false;
+    }
+    if (uncompressedLen < headerLen) {
+      LOGGER.error("invalid compressed package, msgId={}, headerLen={}, uncompressedLen={}.",
+          msgId,
+          headerLen,
+          uncompressedLen);
+      return false;
+    }
+
+    ByteBuf compressed = cumulation.readSlice(totalLen - Integer.BYTES);
+    // max capacity limited, so a malicious package can not expand more than declared
+    // heap buffer, output buffers share its array and it's reclaimed by gc
+    ByteBuf uncompressed = Unpooled.buffer(uncompressedLen, uncompressedLen);
+    try {
+      compressor.decompress(compressed, uncompressed);
+    } catch (Throwable e) {
+      LOGGER.error("failed to decompress package, msgId={}.", msgId, e);
+      uncompressed.release();
+      return false;
+    }
+
+    if (uncompressed.readableBytes() != uncompressedLen) {
+      LOGGER.error("invalid compressed package, msgId={}, expect {} bytes, but got {}.",
+          msgId,
+          uncompressedLen,
+          uncompressed.readableBytes());
+      uncompressed.release();
+      return false;
+    }
+
+    if (!learnHeader(msgId, uncompressed.slice(0, headerLen))) {
+      uncompressed.release();
+      return false;
+    }
+    Buffer headerBuffer = readBuffer(uncompressed, headerLen);
+    Buffer bodyBuffer = readBuffer(uncompressed, uncompressedLen - headerLen);
+    uncompressed.release();
     outputHandler.handle(msgId, headerBuffer, bodyBuffer);
+    return true;
+  }
+
+  // not retained slice, a vertx Buffer can not release its ByteBuf, so handlers can not release it either
+  // received bytes are unpooled heap buffers, share the backing array, it's still valid after cumulation released
+  private static Buffer readBuffer(ByteBuf from, int len) {
+    if (from.hasArray()) {
+      ByteBuf shared = Unpooled.wrappedBuffer(from.array(), from.arrayOffset() + from.readerIndex(), len);
+      from.skipBytes(len);
+      return Buffer.buffer(shared);
+    }
 
-    parser.fixedSizeMode(TCP_HEADER_LENGTH);
-    status = ParseStatus.TCP_HEADER;
+    ByteBuf copy = Unpooled.buffer(len, len);
+    from.readBytes(copy);
+    return Buffer.buffer(copy);
   }
 
-  public void handle(Buffer buf) {
-    parser.handle(buf);
+  // must be in order of packages, new entries of header table maybe referenced by next packages
+  private boolean learnHeader(long msgId, ByteBuf header) {
+    TcpHeaderDecoder decoder = headerDecoder;
+    if (decoder == null || !header.isReadable()) {
+      return true;
+    }
+
+    try {
+      decoder.learn(header);
+      return true;
+    } catch (IllegalStateException e) {
+      LOGGER.error("failed to decode header, msgId={}, cause={}.", msgId, e.getMessage());
+      return false;
+    }
+  }
+
+  private void discardReadBytes() {
+    if (cumulation == null) {
+      return;
+    }
+
+    if (!cumulation.isReadable()) {
+      cumulation.release();
+      cumulation = null;
+      return;
+    }
+
+    if (cumulation instanceof CompositeByteBuf) {
+      ((CompositeByteBuf) cumulation).discardReadComponents();
+    }
   }
 }
@@ -0,0 +1,30 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.servicecomb.foundation.vertx.server;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * whole package without decode, include tcp header, used to forward packages
+ *
+ * frame is not retained, must retain it if used after return
+ * it's independent of the parser's cumulation, so it's still valid after parser discards read bytes
+ * return false to let parser process it as normal
+ */
+public interface TcpRawFrameHandler {
+  boolean handle(long msgId, int flags, ByteBuf frame);
+}
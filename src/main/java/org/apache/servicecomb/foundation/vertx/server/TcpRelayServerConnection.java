@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.servicecomb.foundation.vertx.server;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.servicecomb.foundation.vertx.client.tcp.TcpClientConnection;
+import org.apache.servicecomb.foundation.vertx.client.tcp.TcpRelayCallback;
+import org.apache.servicecomb.foundation.vertx.tcp.TcpConnection;
+import org.apache.servicecomb.foundation.vertx.tcp.TcpConst;
+import org.apache.servicecomb.foundation.vertx.tcp.TcpReadControl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.netty.buffer.ByteBuf;
+import io.vertx.core.net.NetSocket;
+
+/**
+ * gateway mode, forward packages to backend connections without decode and encode
+ * only msgId is rewritten in place, both for request and reply
+ *
+ * clients should connect without login, and compression or header table must not be negotiated on both sides
+ * streaming packages are not supported
+ * backend connections should be connected by preConnect, relay to a disconnected backend fails fast
+ *
+ * no login, so overloaded reply is not negotiated, override getClientControlFlags if all clients support it
+ * otherwise client connection is closed when no backend available or relay failed, see onOverloadedNotNegotiated
+ */
+public abstract class TcpRelayServerConnection extends TcpServerConnection {
+  private static final Logger LOGGER = LoggerFactory.getLogger(TcpRelayServerConnection.class);
+
+  public static final long DEFAULT_MS_RELAY_TIMEOUT = 30000;
+
+  // heartbeat is answered by gateway itself
+  private static final int NOT_RELAY_FLAGS = TcpConst.FLAG_HEARTBEAT | TcpConst.FLAG_HEARTBEAT_ACK
+      | TcpConst.FLAG_STREAM | TcpConst.FLAG_STREAM_CHUNK;
+
+  private long msRelayTimeout = DEFAULT_MS_RELAY_TIMEOUT;
+
+  // only access in context thread
+  private boolean inboundPaused;
+
+  // backend sockets paused because replies are written slower than received
+  private final Set<TcpReadControl> pausedBackends = ConcurrentHashMap.newKeySet();
+
+  public long getMsRelayTimeout() {
+    return msRelayTimeout;
+  }
+
+  public void setMsRelayTimeout(long msRelayTimeout) {
+    this.msRelayTimeout = msRelayTimeout;
+  }
+
+  /**
+   * invoked in eventloop, frame is not retained and must not be changed
+   *
+   * @return null if no available backend, client will get an overloaded reply, see getClientControlFlags
+   */
+  protected abstract TcpClientConnection selectBackend(long msgId, ByteBuf frame);
+
+  /**
+   * control flags all clients of this gateway support, clients connect without login so they can not negotiate
+   */
+  protected int getClientControlFlags() {
+    return 0;
+  }
+
+  @Override
+  public void init(NetSocket netSocket) {
+    setControlFlags(getClientControlFlags());
+    splitter = new TcpParser((msgId, headerBuffer, bodyBuffer) -> {
+      LOGGER.error("relay connection not process package, msgId={}.", msgId);
+    });
+    splitter.setRawFrameHandler(this::onFrame);
+    super.init(netSocket);
+  }
+
+  private boolean onFrame(long msgId, int flags, ByteBuf frame) {
+    if ((flags & NOT_RELAY_FLAGS) != 0) {
+      return false;
+    }
+
+    TcpClientConnection backend = selectBackend(msgId, frame);
+    if (backend == null) {
+      replyOverloaded(msgId);
+      return true;
+    }
+
+    backend.relay(frame.retain(), msRelayTimeout, new RelayCallback(msgId, backend));
+    if (!inboundPaused && isBackpressured(backend)) {
+      // resume after backend write queue drained
+      inboundPaused = true;
+      readControl.pause();
+      backend.waitWriteQueueDrain(v -> context.runOnContext(v2 -> resumeInbound()));
+    }
+    return true;
+  }
+
+  private void resumeInbound() {
+    if (inboundPaused) {
+      inboundPaused = false;
+      readControl.resume();
+    }
+  }
+
+  // in backend eventloop
+  private void onRelayReply(ByteBuf frame, TcpClientConnection backend) {
+    writeBuffer(frame);
+    if (!isBackpressured(this)) {
+      return;
+    }
+
+    // in backend eventloop, so pause immediately
+    TcpReadControl backendReadControl = backend.getReadControl();
+    if (pausedBackends.add(backendReadControl)) {
+      backendReadControl.pause();
+      waitWriteQueueDrain(v -> resumeBackends());
+    }
+  }
+
+  // maxQueueBytes is not limited by default, so socket state must be checked too
+  private static boolean isBackpressured(TcpConnection connection) {
+    return connection.isSocketFull() || connection.writeQueueFull();
+  }
+
+  // resume in backend eventloop by TcpReadControl
+  private void resumeBackends() {
+    for (TcpReadControl backendReadControl : pausedBackends) {
+      if (pausedBackends.remove(backendReadControl)) {
+        backendReadControl.resume();
+      }
+    }
+  }
+
+  private class RelayCallback implements TcpRelayCallback {
+    private final long msgId;
+
+    private final TcpClientConnection backend;
+
+    RelayCallback(long msgId, TcpClientConnection backend) {
+      this.msgId = msgId;
+      this.backend = backend;
+    }
+
+    @Override
+    public void onReply(ByteBuf frame) {
+      onRelayReply(frame, backend);
+    }
+
+    @Override
+    public void onFail(Throwable e) {
+      if (e instanceof TimeoutException) {
+        // client has its own timeout
+        LOGGER.error("relay timeout, msgId={}, cause={}.", msgId, e.getMessage());
+        return;
+      }
+
+      // let client fail fast
+      LOGGER.error("relay failed, msgId={}, cause={}.", msgId, e.getMessage());
+      replyOverloaded(msgId);
+    }
+  }
+}
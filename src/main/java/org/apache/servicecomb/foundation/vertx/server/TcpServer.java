@@ -25,6 +25,7 @@ import org.apache.servicecomb.foundation.ssl.SSLCustom;
 import org.apache.servicecomb.foundation.ssl.SSLOption;
 import org.apache.servicecomb.foundation.ssl.SSLOptionFactory;
 import org.apache.servicecomb.foundation.vertx.AsyncResultCallback;
+import org.apache.servicecomb.foundation.vertx.TransportConfig;
 import org.apache.servicecomb.foundation.vertx.VertxTLSBuilder;
 import org.apache.servicecomb.foundation.vertx.metrics.DefaultTcpServerMetrics;
 import org.apache.servicecomb.foundation.vertx.metrics.metric.DefaultServerEndpointMetric;
@@ -33,7 +34,7 @@ import org.slf4j.LoggerFactory;
 
 import io.vertx.core.Vertx;
 import io.vertx.core.net.NetServer;
-import io.vertx.core.net.NetServerOptions;
+import io.vertx.core.net.SocketAddress;
 import io.vertx.core.net.impl.NetSocketImpl;
 
 public class TcpServer {
@@ -41,11 +42,33 @@ public class TcpServer {
 
   private URIEndpointObject endpointObject;
 
+  private TcpServerConfig serverConfig = new TcpServerConfig();
+
+  private TcpAdmissionController admissionController;
+
   public TcpServer(URIEndpointObject endpointObject) {
     this.endpointObject = endpointObject;
   }
 
+  public TcpServerConfig getServerConfig() {
+    return serverConfig;
+  }
+
+  // must be invoked before init
+  public void setServerConfig(TcpServerConfig serverConfig) {
+    this.serverConfig = serverConfig;
+  }
+
+  public TcpAdmissionController getAdmissionController() {
+    return admissionController;
+  }
+
   public void init(Vertx vertx, String sslKey, AsyncResultCallback<InetSocketAddress> callback) {
+    if (serverConfig.getAdmissionConfig() != null) {
+      admissionController = new TcpAdmissionController(serverConfig.getAdmissionConfig());
+    }
+
+    TransportConfig.configureTcpOptions(serverConfig);
     NetServer netServer;
     if (endpointObject.isSslEnabled()) {
       SSLOptionFactory factory =
@@ -57,11 +80,10 @@ public class TcpServer {
         sslOption = factory.createSSLOption();
       }
       SSLCustom sslCustom = SSLCustom.createSSLCustom(sslOption.getSslCustomClass());
-      NetServerOptions serverOptions = new NetServerOptions();
-      VertxTLSBuilder.buildNetServerOptions(sslOption, sslCustom, serverOptions);
-      netServer = vertx.createNetServer(serverOptions);
+      VertxTLSBuilder.buildNetServerOptions(sslOption, sslCustom, serverConfig);
+      netServer = vertx.createNetServer(serverConfig);
     } else {
-      netServer = vertx.createNetServer();
+      netServer = vertx.createNetServer(serverConfig);
     }
 
     netServer.connectHandler(netSocket -> {
@@ -76,12 +98,19 @@ public class TcpServer {
       }
 
       TcpServerConnection connection = createTcpServerConnection();
+      connection.setServerConfig(serverConfig);
+      connection.setAdmissionController(admissionController);
       connection.init(netSocket);
     });
     netServer.exceptionHandler(e -> {
       LOGGER.error("Unexpected error in server.{}", ExceptionUtils.getExceptionMessageWithoutTrace(e));
     });
     InetSocketAddress socketAddress = endpointObject.getSocketAddress();
+    if (endpointObject.isDomainSocket()) {
+      listenDomainSocket(vertx, netServer, socketAddress, callback);
+      return;
+    }
+
     netServer.listen(socketAddress.getPort(), socketAddress.getHostString(), ar -> {
       if (ar.succeeded()) {
         callback.success(socketAddress);
@@ -89,11 +118,42 @@ public class TcpServer {
       }
 
       // 监听失败
+      closeAdmissionController();
       String msg = String.format("listen failed, address=%s", socketAddress.toString());
       callback.fail(new Exception(msg, ar.cause()));
     });
   }
 
+  // host and port of endpoint only used to identify the server
+  private void listenDomainSocket(Vertx vertx, NetServer netServer, InetSocketAddress socketAddress,
+      AsyncResultCallback<InetSocketAddress> callback) {
+    String path = endpointObject.getDomainSocketPath();
+    if (!vertx.isNativeTransportEnabled()) {
+      netServer.close();
+      String msg = String.format("listen failed, domain socket %s requires vertx native transport.", path);
+      callback.fail(new IllegalStateException(msg));
+      return;
+    }
+
+    netServer.listen(SocketAddress.domainSocketAddress(path), ar -> {
+      if (ar.succeeded()) {
+        LOGGER.info("listen on domain socket {}, endpoint={}.", path, socketAddress);
+        callback.success(socketAddress);
+        return;
+      }
+
+      closeAdmissionController();
+      String msg = String.format("listen failed, domainSocket=%s", path);
+      callback.fail(new Exception(msg, ar.cause()));
+    });
+  }
+
+  private void closeAdmissionController() {
+    if (admissionController != null) {
+      admissionController.close();
+    }
+  }
+
   protected int getConnectionLimit() {
     return Integer.MAX_VALUE;
   }
@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.servicecomb.foundation.vertx.server;
+
+import java.util.concurrent.Executor;
+
+import org.apache.servicecomb.foundation.vertx.tcp.TcpReadConfig;
+import org.apache.servicecomb.foundation.vertx.tcp.TcpWriteConfig;
+
+import io.vertx.core.net.NetServerOptions;
+
+public class TcpServerConfig extends NetServerOptions {
+  public static final int DEFAULT_HEADER_TABLE_SIZE = 256;
+
+  private TcpReadConfig readConfig = new TcpReadConfig();
+
+  private TcpWriteConfig writeConfig = new TcpWriteConfig();
+
+  // null means process packages in eventloop
+  private Executor dispatchExecutor;
+
+  // packages of one connection are processed one by one in dispatchExecutor
+  private boolean orderedDispatch;
+
+  // encode reply by pooled direct buffer
+  private boolean pooledBuffer;
+
+  // max header table size accepted in login, 0 means not support
+  private int headerTableSize = DEFAULT_HEADER_TABLE_SIZE;
+
+  // null means no admission control
+  private TcpAdmissionConfig admissionConfig;
+
+  public TcpReadConfig getReadConfig() {
+    return readConfig;
+  }
+
+  public void setReadConfig(TcpReadConfig readConfig) {
+    this.readConfig = readConfig;
+  }
+
+  public TcpWriteConfig getWriteConfig() {
+    return writeConfig;
+  }
+
+  public void setWriteConfig(TcpWriteConfig writeConfig) {
+    this.writeConfig = writeConfig;
+  }
+
+  public Executor getDispatchExecutor() {
+    return dispatchExecutor;
+  }
+
+  public void setDispatchExecutor(Executor dispatchExecutor) {
+    this.dispatchExecutor = dispatchExecutor;
+  }
+
+  public boolean isOrderedDispatch() {
+    return orderedDispatch;
+  }
+
+  public void setOrderedDispatch(boolean orderedDispatch) {
+    this.orderedDispatch = orderedDispatch;
+  }
+
+  public boolean isPooledBuffer() {
+    return pooledBuffer;
+  }
+
+  public void setPooledBuffer(boolean pooledBuffer) {
+    this.pooledBuffer = pooledBuffer;
+  }
+
+  public int getHeaderTableSize() {
+    return headerTableSize;
+  }
+
+  public void setHeaderTableSize(int headerTableSize) {
+    this.headerTableSize = headerTableSize;
+  }
+
+  public TcpAdmissionConfig getAdmissionConfig() {
+    return admissionConfig;
+  }
+
+  public void setAdmissionConfig(TcpAdmissionConfig admissionConfig) {
+    this.admissionConfig = admissionConfig;
+  }
+}
@@ -16,10 +16,23 @@
  */
 package org.apache.servicecomb.foundation.vertx.server;
 
+import java.io.IOException;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.servicecomb.foundation.common.concurrent.ConcurrentLongHashMap;
+import org.apache.servicecomb.foundation.vertx.metrics.DefaultTcpServerMetrics;
+import org.apache.servicecomb.foundation.vertx.metrics.metric.DefaultServerEndpointMetric;
 import org.apache.servicecomb.foundation.vertx.tcp.TcpConnection;
+import org.apache.servicecomb.foundation.vertx.tcp.TcpConst;
+import org.apache.servicecomb.foundation.vertx.tcp.TcpInboundStreams;
+import org.apache.servicecomb.foundation.vertx.tcp.TcpOutputStream;
+import org.apache.servicecomb.foundation.vertx.tcp.TcpStreamHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.net.NetSocket;
 import io.vertx.core.net.impl.NetSocketImpl;
 
@@ -28,10 +41,276 @@ public class TcpServerConnection extends TcpConnection {
 
   protected TcpParser splitter;
 
+  // not null if support streaming request
+  protected TcpInboundStreams inboundStreams;
+
+  protected TcpServerConfig serverConfig = new TcpServerConfig();
+
+  protected TcpServerDispatcher dispatcher;
+
+  private DefaultServerEndpointMetric endpointMetric;
+
+  // shared by all connections of the server, null means not enabled
+  private TcpAdmissionController admissionController;
+
+  // key is msgId, value is nanoTime when received
+  private ConcurrentLongHashMap<Long> admittedRequests;
+
+  // paused because too many in-flight requests
+  private volatile boolean readPaused;
+
+  public TcpServerConfig getServerConfig() {
+    return serverConfig;
+  }
+
+  public void setServerConfig(TcpServerConfig serverConfig) {
+    this.serverConfig = serverConfig;
+    this.setWriteConfig(serverConfig.getWriteConfig());
+  }
+
+  public void setAdmissionController(TcpAdmissionController admissionController) {
+    this.admissionController = admissionController;
+    if (admissionController != null) {
+      this.admittedRequests = new ConcurrentLongHashMap<>(admissionController.getConfig().getMaxInflightPerConnection());
+    }
+  }
+
+  public int getInflightCount() {
+    return admittedRequests == null ? 0 : admittedRequests.size();
+  }
+
+  /**
+   * invoked by subclass when login, zipName should be FrameCompressors.negotiate(client zipNames)
+   * must reply login response before this, client can not decompress before it got the response
+   */
+  @Override
+  public void setZipName(String zipName) {
+    super.setZipName(zipName);
+    if (splitter != null) {
+      splitter.setFrameCompressor(frameCompressor);
+    }
+  }
+
+  /**
+   * invoked by subclass when login, headerTableSize should be min(client headerTableSize, serverConfig.headerTableSize)
+   * must reply login response before this, client can not decode before it got the response
+   */
+  @Override
+  public void setHeaderTableSize(int headerTableSize) {
+    super.setHeaderTableSize(Math.min(headerTableSize, serverConfig.getHeaderTableSize()));
+    if (splitter != null) {
+      splitter.setHeaderDecoder(headerDecoder);
+    }
+  }
+
+  /**
+   * invoked by subclass after init, to accept streaming request
+   */
+  protected void setStreamHandler(TcpStreamHandler streamHandler) {
+    inboundStreams = new TcpInboundStreams(context, readControl, streamHandler);
+    splitter.setStreamHandler(inboundStreams);
+  }
+
+  /**
+   * process a request package, invoked by dispatcher, in eventloop or TcpServerConfig.dispatchExecutor
+   * only used when subclass not create splitter by itself
+   *
+   * when admission control enabled, every request holds a permit until reply(...) or complete(msgId)
+   * if answer by write(...) or not answer at all, eg: one-way request, must invoke complete(msgId)
+   * otherwise the permit is leaked, and read of this connection is paused forever after limit reached
+   */
+  protected void onRequest(long msgId, Buffer headerBuffer, Buffer bodyBuffer) {
+    LOGGER.error("onRequest not implemented, discard package, msgId={}.", msgId);
+  }
+
+  // answer now, not let the client wait until timeout
+  protected void onDispatchRejected(long msgId, RejectedExecutionException e) {
+    LOGGER.error("dispatch executor rejected package, msgId={}, cause={}.", msgId, e.getMessage());
+    abandonAdmitted(msgId);
+    replyOverloaded(msgId);
+  }
+
+  protected TcpServerDispatcher createDispatcher() {
+    TcpServerDispatcher dispatcher = new TcpServerDispatcher(this::onRequest,
+        serverConfig.getDispatchExecutor(),
+        serverConfig.isOrderedDispatch());
+    dispatcher.setRejectedHandler(this::onDispatchRejected);
+    return dispatcher;
+  }
+
+  // in eventloop, before dispatch
+  protected void admit(long msgId, Buffer headerBuffer, Buffer bodyBuffer) {
+    if (!admissionController.tryAcquire(context)) {
+      // close connection if overloaded reply not negotiated
+      replyOverloaded(msgId);
+      return;
+    }
+
+    admittedRequests.put(msgId, System.nanoTime());
+    if (admittedRequests.size() >= admissionController.getConfig().getMaxInflightPerConnection()) {
+      // let tcp flow control slow down the client
+      readPaused = true;
+      readControl.pause();
+    }
+    dispatcher.handle(msgId, headerBuffer, bodyBuffer);
+  }
+
+  // cheap reply, only has tcp header
+  protected void replyOverloaded(long msgId) {
+    if (endpointMetric != null) {
+      endpointMetric.onRejectByOverload();
+    }
+
+    if (!isControlFlagEnabled(TcpConst.FLAG_OVERLOADED)) {
+      onOverloadedNotNegotiated(msgId);
+      return;
+    }
+
+    try (TcpOutputStream os = new TcpOutputStream(msgId)) {
+      os.writeLength(0, TcpConst.FLAG_OVERLOADED);
+      write(os.detachByteBuf());
+    }
+  }
+
+  /**
+   * subclass should invoke setControlFlags with TcpClientConnection.getSupportedControlFlags of the client when login,
+   * and reply getControlFlags() to client in login response
+   *
+   * client not negotiated FLAG_OVERLOADED in login, an old client treats the flag as headerLen and its stream broken
+   * default close the connection, so the client fails all in-flight requests fast and reconnects
+   * subclass can override it to reply a business error in its own format
+   */
+  protected void onOverloadedNotNegotiated(long msgId) {
+    LOGGER.error("overloaded reply not negotiated, close connection, msgId={}, address={}.",
+        msgId,
+        netSocket.remoteAddress());
+    netSocket.close();
+  }
+
+  protected void onControl(long msgId, int flags) {
+    if ((flags & TcpConst.FLAG_HEARTBEAT) != 0) {
+      try (TcpOutputStream os = new TcpOutputStream(msgId)) {
+        os.writeLength(0, TcpConst.FLAG_HEARTBEAT_ACK);
+        write(os.detachByteBuf());
+      }
+    }
+  }
+
+  /**
+   * thread safe, release the admission permit of the request, reply(...) invokes it already
+   * invoke it if answer by write(...) or not answer at all, invoke it again or for unknown msgId is ignored
+   */
+  public void complete(long msgId) {
+    if (admissionController == null) {
+      return;
+    }
+
+    Long receiveTime = admittedRequests.remove(msgId);
+    if (receiveTime == null) {
+      return;
+    }
+
+    admissionController.release(System.nanoTime() - receiveTime);
+    resumeReadIfInflightLow();
+  }
+
+  // not processed, not affect the limit
+  private void abandonAdmitted(long msgId) {
+    if (admissionController == null || admittedRequests.remove(msgId) == null) {
+      return;
+    }
+
+    admissionController.abandon();
+    resumeReadIfInflightLow();
+  }
+
+  private void resumeReadIfInflightLow() {
+    if (readPaused && isInflightLow()) {
+      context.runOnContext(v -> resumeRead());
+    }
+  }
+
+  private boolean isInflightLow() {
+    return admittedRequests.size() <= admissionController.getConfig().getMaxInflightPerConnection() / 2;
+  }
+
+  private void resumeRead() {
+    if (readPaused && isInflightLow()) {
+      readPaused = false;
+      readControl.resume();
+    }
+  }
+
+  private void abandonInflight() {
+    if (admissionController == null) {
+      return;
+    }
+
+    admittedRequests.removeAll((msgId, receiveTime) -> admissionController.abandon());
+  }
+
+  /**
+   * thread safe, encode in caller thread, and write by batched queue
+   * headerBuffer is plain bytes, can not be used after header table negotiated, client can not decode it
+   * in that case, encode header by getHeaderEncoder() to a stream of createReplyStream, and reply(os)
+   *
+   * @return false if rejected by write queue
+   * @throws IllegalStateException if headerBuffer is not empty and header table negotiated
+   */
+  public boolean reply(long msgId, Buffer headerBuffer, Buffer bodyBuffer) {
+    int headerLen = headerBuffer == null ? 0 : headerBuffer.length();
+    int bodyLen = bodyBuffer == null ? 0 : bodyBuffer.length();
+    if (headerLen != 0 && headerEncoder != null) {
+      throw new IllegalStateException(
+          String.format("header table negotiated, header must be encoded by TcpHeaderEncoder, msgId=%d.", msgId));
+    }
+    try (TcpOutputStream os = createReplyStream(msgId, TcpParser.TCP_HEADER_LENGTH + headerLen + bodyLen)) {
+      os.writeLength(headerLen + bodyLen, headerLen);
+      if (headerLen != 0) {
+        writeBuffer(os, headerBuffer);
+      }
+      if (bodyLen != 0) {
+        writeBuffer(os, bodyBuffer);
+      }
+      return reply(os);
+    }
+  }
+
+  // not change index of buffer, so it can be written again
+  private static void writeBuffer(TcpOutputStream os, Buffer buffer) {
+    ByteBuf src = buffer.getByteBuf();
+    os.getByteBuf().writeBytes(src, src.readerIndex(), src.readableBytes());
+  }
+
+  /**
+   * os is a whole encoded package, ownership of the buffer is transferred
+   */
+  public boolean reply(TcpOutputStream os) {
+    complete(os.getMsgId());
+    return write(os);
+  }
+
+  protected TcpOutputStream createReplyStream(long msgId, int sizeHint) {
+    if (serverConfig.isPooledBuffer()) {
+      return new TcpOutputStream(msgId, PooledByteBufAllocator.DEFAULT, sizeHint);
+    }
+    return new TcpOutputStream(msgId);
+  }
+
   public void init(NetSocket netSocket) {
     // currently, socket always be NetSocketImpl
     this.initNetSocket((NetSocketImpl) netSocket);
 
+    if (splitter == null) {
+      dispatcher = createDispatcher();
+      if (admissionController == null) {
+        splitter = new TcpParser(dispatcher);
+      } else {
+        admissionController.registerContext(context);
+        splitter = new TcpParser(this::admit);
+      }
+    }
+
     String remoteAddress = netSocket.remoteAddress().toString();
     LOGGER.info("connect from {}, in thread {}",
         remoteAddress,
@@ -46,8 +325,30 @@ public class TcpServerConnection extends TcpConnection {
       LOGGER.error("disconected from {}, in thread {}",
           remoteAddress,
           Thread.currentThread().getName());
+      if (splitter != null) {
+        splitter.release();
+      }
+      if (inboundStreams != null) {
+        inboundStreams.abortAll(new IOException("socket closed"));
+      }
+      clearWriteQueue();
+      abandonInflight();
     });
 
+    if (splitter != null) {
+      splitter.setReadConfig(serverConfig.getReadConfig());
+      splitter.setControlHandler(this::onControl);
+      splitter.bindSocket(netSocket, context, readControl);
+      endpointMetric = getEndpointMetric((NetSocketImpl) netSocket);
+      splitter.setEndpointMetric(endpointMetric);
+    }
     netSocket.handler(splitter);
   }
+
+  private DefaultServerEndpointMetric getEndpointMetric(NetSocketImpl netSocket) {
+    if (netSocket.metrics() instanceof DefaultTcpServerMetrics) {
+      return ((DefaultTcpServerMetrics) netSocket.metrics()).getEndpointMetric();
+    }
+    return null;
+  }
 }
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.servicecomb.foundation.vertx.server;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.vertx.core.buffer.Buffer;
+
+/**
+ * dispatch stage of one TcpServerConnection
+ *
+ * executor is null: run in eventloop, only for non-blocking handler
+ * not ordered: every package is an independent task, can use all threads of executor
+ * ordered: packages of this connection run one by one in executor, different connections still run concurrently
+ */
+public class TcpServerDispatcher implements TcpBufferHandler {
+  private static final Logger LOGGER = LoggerFactory.getLogger(TcpServerDispatcher.class);
+
+  public interface RejectedHandler {
+    void onRejected(long msgId, RejectedExecutionException e);
+  }
+
+  private final TcpBufferHandler handler;
+
+  private final Executor executor;
+
+  private final boolean ordered;
+
+  private RejectedHandler rejectedHandler;
+
+  // for ordered mode
+  private final Queue<Runnable> pendingTasks = new ConcurrentLinkedQueue<>();
+
+  private final AtomicBoolean draining = new AtomicBoolean();
+
+  public TcpServerDispatcher(TcpBufferHandler handler, Executor executor, boolean ordered) {
+    this.handler = handler;
+    this.executor = executor;
+    this.ordered = ordered;
+  }
+
+  public void setRejectedHandler(RejectedHandler rejectedHandler) {
+    this.rejectedHandler = rejectedHandler;
+  }
+
+  public int getPendingTaskCount() {
+    return pendingTasks.size();
+  }
+
+  @Override
+  public void handle(long msgId, Buffer headerBuffer, Buffer bodyBuffer) {
+    if (executor == null) {
+      handler.handle(msgId, headerBuffer, bodyBuffer);
+      return;
+    }
+
+    Runnable task = () -> handler.handle(msgId, headerBuffer, bodyBuffer);
+    if (!ordered) {
+      execute(msgId, task);
+      return;
+    }
+
+    pendingTasks.add(task);
+    scheduleDrain(msgId, task);
+  }
+
+  private boolean execute(long msgId, Runnable task) {
+    try {
+      executor.execute(task);
+      return true;
+    } catch (RejectedExecutionException e) {
+      if (rejectedHandler != null) {
+        rejectedHandler.onRejected(msgId, e);
+      }
+      return false;
+    }
+  }
+
+  private void scheduleDrain(long msgId, Runnable task) {
+    if (draining.compareAndSet(false, true) && !execute(msgId, this::drain)) {
+      pendingTasks.remove(task);
+      draining.set(false);
+    }
+  }
+
+  private void drain() {
+    for (; ; ) {
+      for (; ; ) {
+        Runnable task = pendingTasks.poll();
+        if (task == null) {
+          break;
+        }
+        run(task);
+      }
+
+      draining.set(false);
+      // added after poll returned null and before draining reset
+      if (pendingTasks.isEmpty() || !draining.compareAndSet(false, true)) {
+        return;
+      }
+    }
+  }
+
+  private void run(Runnable task) {
+    try {
+      task.run();
+    } catch (Throwable e) {
+      LOGGER.error("failed to process tcp package.", e);
+    }
+  }
+}
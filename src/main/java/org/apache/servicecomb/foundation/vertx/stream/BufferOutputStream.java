@@ -21,6 +21,7 @@ import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import io.vertx.core.buffer.Buffer;
 
 /**
@@ -57,6 +58,15 @@ public class BufferOutputStream extends OutputStream {
     this.byteBuf = buffer;
   }
 
+  /**
+   * allocate direct buffer from allocator, eg: PooledByteBufAllocator
+   * the buffer will be released by close, unless ownership is taken by detachByteBuf
+   */
+  public BufferOutputStream(ByteBufAllocator allocator, int initialCapacity) {
+    this(allocator.directBuffer(initialCapacity > 0 ? initialCapacity : DIRECT_BUFFER_SIZE));
+    needReleaseBuffer = true;
+  }
+
   public ByteBuf getByteBuf() {
     return byteBuf;
   }
@@ -65,6 +75,15 @@ public class BufferOutputStream extends OutputStream {
     return Buffer.buffer(byteBuf);
   }
 
+  /**
+   * transfer ownership of the buffer to the caller, eg: write to socket, netty will release it after flushed
+   * close will not release it any more
+   */
+  public ByteBuf detachByteBuf() {
+    needReleaseBuffer = false;
+    return byteBuf;
+  }
+
   public int length() {
     return byteBuf.readableBytes();
   }
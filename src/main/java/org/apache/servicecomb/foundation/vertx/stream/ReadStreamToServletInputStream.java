@@ -0,0 +1,372 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.servicecomb.foundation.vertx.stream;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.netty.buffer.ByteBuf;
+import io.vertx.core.Context;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.streams.ReadStream;
+
+/**
+ * servlet input stream fed by a vertx ReadStream directly, eg: HttpServerRequest, not wait whole body received
+ *
+ * non-blocking mode: after setReadListener, callbacks are invoked in context thread
+ * blocking mode: read parks the caller until data arrived, must not be invoked in eventloop
+ *
+ * source is paused when buffered bytes exceed maxBufferedBytes, and resumed when drop to half of it
+ * use lock but not synchronized, so virtual threads are not pinned when wait
+ */
+public class ReadStreamToServletInputStream extends ServletInputStream {
+  private static final Logger LOGGER = LoggerFactory.getLogger(ReadStreamToServletInputStream.class);
+
+  public static final int DEFAULT_MAX_BUFFERED_BYTES = 256 * 1024;
+
+  private final Context context;
+
+  private final ReadStream<Buffer> readStream;
+
+  private final ReentrantLock lock = new ReentrantLock();
+
+  private final Condition dataArrived = lock.newCondition();
+
+  private final Queue<ByteBuf> chunks = new ArrayDeque<>();
+
+  private int maxBufferedBytes = DEFAULT_MAX_BUFFERED_BYTES;
+
+  // 0 means wait forever
+  private long msReadTimeout;
+
+  private long bufferedBytes;
+
+  private boolean paused;
+
+  private boolean ended;
+
+  private Throwable failure;
+
+  private boolean closed;
+
+  private ReadListener readListener;
+
+  // isReady returned false, notify listener when data arrived
+  private boolean listenerWaiting;
+
+  private boolean allDataReadNotified;
+
+  public ReadStreamToServletInputStream(Context context, ReadStream<Buffer> readStream) {
+    this.context = context;
+    this.readStream = readStream;
+    readStream.handler(this::onData);
+    readStream.endHandler(v -> onEnd());
+    readStream.exceptionHandler(this::onError);
+  }
+
+  public void setMaxBufferedBytes(int maxBufferedBytes) {
+    this.maxBufferedBytes = maxBufferedBytes;
+  }
+
+  public void setMsReadTimeout(long msReadTimeout) {
+    this.msReadTimeout = msReadTimeout;
+  }
+
+  // in context thread
+  private void onData(Buffer buffer) {
+    boolean notifyListener;
+    lock.lock();
+    try {
+      if (closed) {
+        // discard remain body, not stall the connection
+        return;
+      }
+
+      chunks.add(buffer.getByteBuf());
+      bufferedBytes += buffer.length();
+      if (!paused && bufferedBytes >= maxBufferedBytes) {
+        paused = true;
+        readStream.pause();
+      }
+      notifyListener = takeListenerWaiting();
+      dataArrived.signalAll();
+    } finally {
+      lock.unlock();
+    }
+
+    if (notifyListener) {
+      notifyDataAvailable();
+    }
+  }
+
+  private void onEnd() {
+    boolean notifyListener;
+    lock.lock();
+    try {
+      ended = true;
+      notifyListener = readListener != null && chunks.isEmpty();
+      if (notifyListener) {
+        listenerWaiting = false;
+      }
+      dataArrived.signalAll();
+    } finally {
+      lock.unlock();
+    }
+
+    if (notifyListener) {
+      notifyAllDataRead();
+    }
+  }
+
+  private void onError(Throwable e) {
+    ReadListener listener;
+    lock.lock();
+    try {
+      failure = e;
+      listener = readListener;
+      dataArrived.signalAll();
+    } finally {
+      lock.unlock();
+    }
+
+    if (listener != null) {
+      listener.onError(e);
+    }
+  }
+
+  private boolean takeListenerWaiting() {
+    if (listenerWaiting) {
+      listenerWaiting = false;
+      return true;
+    }
+    return false;
+  }
+
+  private void notifyDataAvailable() {
+    try {
+      readListener.onDataAvailable();
+    } catch (Throwable e) {
+      LOGGER.error("ReadListener.onDataAvailable failed.", e);
+      readListener.onError(e);
+    }
+  }
+
+  private void notifyAllDataRead() {
+    lock.lock();
+    try {
+      if (allDataReadNotified) {
+        return;
+      }
+      allDataReadNotified = true;
+    } finally {
+      lock.unlock();
+    }
+
+    try {
+      readListener.onAllDataRead();
+    } catch (Throwable e) {
+      LOGGER.error("ReadListener.onAllDataRead failed.", e);
+      readListener.onError(e);
+    }
+  }
+
+  @Override
+  public void setReadListener(ReadListener readListener) {
+    if (readListener == null) {
+      throw new NullPointerException("readListener must not be null.");
+    }
+
+    lock.lock();
+    try {
+      if (this.readListener != null) {
+        throw new IllegalStateException("readListener already set.");
+      }
+      this.readListener = readListener;
+      listenerWaiting = true;
+    } finally {
+      lock.unlock();
+    }
+
+    // first notify, maybe data already arrived
+    context.runOnContext(v -> {
+      boolean available;
+      boolean finished;
+      lock.lock();
+      try {
+        available = !chunks.isEmpty() && takeListenerWaiting();
+        finished = ended && chunks.isEmpty();
+      } finally {
+        lock.unlock();
+      }
+
+      if (available) {
+        notifyDataAvailable();
+      } else if (finished) {
+        notifyAllDataRead();
+      }
+    });
+  }
+
+  @Override
+  public boolean isReady() {
+    lock.lock();
+    try {
+      if (!chunks.isEmpty() || ended || failure != null) {
+        return true;
+      }
+
+      listenerWaiting = readListener != null;
+      return false;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public boolean isFinished() {
+    lock.lock();
+    try {
+      return ended && chunks.isEmpty();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public int available() {
+    lock.lock();
+    try {
+      return (int) Math.min(bufferedBytes, Integer.MAX_VALUE);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public int read() throws IOException {
+    byte[] bytes = new byte[1];
+    int len = read(bytes, 0, 1);
+    return len < 0 ? -1 : bytes[0] & 0xFF;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+
+    int readed;
+    boolean allDataRead;
+    lock.lock();
+    try {
+      if (!waitData()) {
+        return -1;
+      }
+
+      readed = 0;
+      while (readed < len && !chunks.isEmpty()) {
+        ByteBuf chunk = chunks.peek();
+        int n = Math.min(len - readed, chunk.readableBytes());
+        chunk.readBytes(b, off + readed, n);
+        readed += n;
+        if (!chunk.isReadable()) {
+          chunks.poll();
+        }
+      }
+      bufferedBytes -= readed;
+      if (paused && bufferedBytes <= maxBufferedBytes / 2) {
+        paused = false;
+        context.runOnContext(v -> readStream.resume());
+      }
+      allDataRead = readListener != null && ended && chunks.isEmpty();
+    } finally {
+      lock.unlock();
+    }
+
+    if (allDataRead) {
+      context.runOnContext(v -> notifyAllDataRead());
+    }
+    return readed;
+  }
+
+  // return false if end of stream
+  private boolean waitData() throws IOException {
+    long nsTimeout = TimeUnit.MILLISECONDS.toNanos(msReadTimeout);
+    while (chunks.isEmpty()) {
+      if (failure != null) {
+        throw new IOException("failed to read request body.", failure);
+      }
+      if (ended || closed) {
+        return false;
+      }
+      if (readListener != null) {
+        // non-blocking mode, should check isReady before read
+        throw new IllegalStateException("no data available, should read after isReady return true.");
+      }
+      if (Context.isOnEventLoopThread()) {
+        throw new IllegalStateException("can not wait request body in eventloop thread.");
+      }
+
+      try {
+        if (msReadTimeout <= 0) {
+          dataArrived.await();
+          continue;
+        }
+
+        if (nsTimeout <= 0) {
+          throw new IOException(String.format("read request body timeout, timeout=%dms.", msReadTimeout));
+        }
+        nsTimeout = dataArrived.awaitNanos(nsTimeout);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("interrupted when wait request body.", e);
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public void close() {
+    lock.lock();
+    try {
+      if (closed) {
+        return;
+      }
+
+      closed = true;
+      chunks.clear();
+      bufferedBytes = 0;
+      dataArrived.signalAll();
+      if (paused) {
+        paused = false;
+        context.runOnContext(v -> readStream.resume());
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+}
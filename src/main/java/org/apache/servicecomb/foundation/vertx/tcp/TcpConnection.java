@@ -18,25 +18,55 @@ package org.apache.servicecomb.foundation.vertx.tcp;
 
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.servicecomb.foundation.vertx.metrics.metric.DefaultTcpWriteMetric;
+import org.apache.servicecomb.foundation.vertx.server.TcpParser;
+import org.apache.servicecomb.foundation.vertx.tcp.compress.FrameCompressor;
+import org.apache.servicecomb.foundation.vertx.tcp.compress.FrameCompressors;
+import org.apache.servicecomb.foundation.vertx.tcp.header.TcpHeaderDecoder;
+import org.apache.servicecomb.foundation.vertx.tcp.header.TcpHeaderEncoder;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.CompositeByteBuf;
 import io.vertx.core.Context;
-import io.vertx.core.buffer.Buffer;
+import io.vertx.core.Handler;
+import io.vertx.core.impl.ContextInternal;
 import io.vertx.core.net.NetSocket;
 import io.vertx.core.net.impl.NetSocketImpl;
 import io.vertx.core.net.impl.VertxHelper;
 
 public class TcpConnection {
+  public static final int DEFAULT_ZIP_MIN_SIZE = 1024;
+
   protected String protocol;
 
   // 压缩算法名字
   protected String zipName;
 
+  // resolved from zipName, null means not compress
+  protected volatile FrameCompressor frameCompressor;
+
+  // package smaller than this will not be compressed
+  protected int zipMinSize = DEFAULT_ZIP_MIN_SIZE;
+
+  // negotiated in login, null means header is written as plain bytes by caller
+  protected volatile TcpHeaderEncoder headerEncoder;
+
+  protected volatile TcpHeaderDecoder headerDecoder;
+
+  // negotiated in login, TcpConst.CONTROL_FLAGS can be sent to the peer
+  private volatile int controlFlags;
+
   protected NetSocket netSocket;
 
+  // shared by all features pause reading of netSocket
+  protected TcpReadControl readControl;
+
   // context of netSocket
   protected Context context;
 
@@ -54,6 +84,34 @@ public class TcpConnection {
 
   private AtomicLong writeQueueSize = new AtomicLong();
 
+  private AtomicLong writeQueueBytes = new AtomicLong();
+
+  protected TcpWriteConfig writeConfig = new TcpWriteConfig();
+
+  protected DefaultTcpWriteMetric writeMetric = new DefaultTcpWriteMetric();
+
+  // netSocket.writeQueueFull, stop write until socket drained
+  // only changed in context thread
+  private volatile boolean socketFull;
+
+  private long socketFullTime;
+
+  // for CALLBACK policy
+  private volatile boolean needNotifyDrain;
+
+  private Handler<Void> drainHandler;
+
+  // one-shot, for streaming senders
+  private Queue<Handler<Void>> drainWaiters = new ConcurrentLinkedQueue<>();
+
+  // for BLOCK policy
+  // lock but not synchronized, so blocked virtual threads are parked, not pin the carrier thread
+  private final ReentrantLock queueSpaceLock = new ReentrantLock();
+
+  private final Condition queueSpaceAvailable = queueSpaceLock.newCondition();
+
+  private volatile int blockedSenders;
+
   public String getProtocol() {
     return protocol;
   }
@@ -66,8 +124,121 @@ public class TcpConnection {
     return zipName;
   }
 
+  /**
+   * must be invoked after both sides agreed the zipName, eg: in login
+   */
   public void setZipName(String zipName) {
     this.zipName = zipName;
+    this.frameCompressor = FrameCompressors.find(zipName);
+  }
+
+  /**
+   * must be invoked after both sides agreed the flags, eg: in login, 0 means no control package
+   * a control flag not negotiated must not be sent, old peer treats it as part of headerLen
+   */
+  public void setControlFlags(int controlFlags) {
+    this.controlFlags = controlFlags & TcpConst.CONTROL_FLAGS;
+  }
+
+  public int getControlFlags() {
+    return controlFlags;
+  }
+
+  public boolean isControlFlagEnabled(int flag) {
+    return (controlFlags & flag) != 0;
+  }
+
+  public FrameCompressor getFrameCompressor() {
+    return frameCompressor;
+  }
+
+  /**
+   * must be invoked after both sides agreed the size, eg: in login, 0 means not use header table
+   * after that, all headers of this connection must be encoded by TcpHeaderEncoder
+   */
+  public void setHeaderTableSize(int headerTableSize) {
+    if (headerTableSize <= 0) {
+      this.headerEncoder = null;
+      this.headerDecoder = null;
+      return;
+    }
+
+    this.headerEncoder = new TcpHeaderEncoder(headerTableSize);
+    this.headerDecoder = new TcpHeaderDecoder(headerTableSize);
+  }
+
+  public TcpHeaderEncoder getHeaderEncoder() {
+    return headerEncoder;
+  }
+
+  public TcpHeaderDecoder getHeaderDecoder() {
+    return headerDecoder;
+  }
+
+  public int getZipMinSize() {
+    return zipMinSize;
+  }
+
+  public void setZipMinSize(int zipMinSize) {
+    this.zipMinSize = zipMinSize;
+  }
+
+  /**
+   * compress header + body of a whole tcp package, take over the ownership of frame
+   * invoked in sender thread, so eventloop not spend cpu on compression
+   *
+   * @return frame itself if not compressed, otherwise a new buffer and frame is released
+   */
+  protected ByteBuf compressFrame(ByteBuf frame) {
+    FrameCompressor compressor = frameCompressor;
+    if (compressor == null) {
+      return frame;
+    }
+
+    int idx = frame.readerIndex();
+    int totalLen = frame.getInt(idx + TcpParser.TOTAL_LEN_OFFSET);
+    int headerLenField = frame.getInt(idx + TcpParser.HEADER_LEN_OFFSET);
+    if (totalLen < zipMinSize || (headerLenField & TcpConst.FLAGS_MASK) != 0) {
+      return frame;
+    }
+
+    ByteBuf zipped = frame.alloc().buffer(TcpParser.TCP_HEADER_LENGTH + Integer.BYTES + totalLen / 2);
+    zipped.writeBytes(frame, idx, TcpParser.TOTAL_LEN_OFFSET);
+    zipped.writeInt(0);
+    zipped.writeInt(headerLenField | TcpConst.FLAG_COMPRESSED);
+    zipped.writeInt(totalLen);
+    compressor.compress(frame.slice(idx + TcpParser.TCP_HEADER_LENGTH, totalLen), zipped);
+
+    int zippedLen = zipped.readableBytes() - TcpParser.TCP_HEADER_LENGTH;
+    if (zippedLen >= totalLen) {
+      // not worth it
+      zipped.release();
+      return frame;
+    }
+
+    zipped.setInt(TcpParser.TOTAL_LEN_OFFSET, zippedLen);
+    frame.release();
+    return zipped;
+  }
+
+  public TcpWriteConfig getWriteConfig() {
+    return writeConfig;
+  }
+
+  public void setWriteConfig(TcpWriteConfig writeConfig) {
+    this.writeConfig = writeConfig;
+  }
+
+  public DefaultTcpWriteMetric getWriteMetric() {
+    return writeMetric;
+  }
+
+  public long getWriteQueueSize() {
+    return writeQueueSize.get();
+  }
+
+  public long getWriteQueueBytes() {
+    return writeQueueBytes.get();
   }
 
   public void setContext(Context context) {
@@ -78,29 +249,189 @@ public class TcpConnection {
     return netSocket;
   }
 
+  /**
+   * all pause and resume of reading must go through it
+   */
+  public TcpReadControl getReadControl() {
+    return readControl;
+  }
+
   public void initNetSocket(NetSocketImpl netSocket) {
     this.netSocket = netSocket;
 
     this.context = VertxHelper.getConnectionContext(netSocket);
+    this.readControl = new TcpReadControl(context, netSocket);
+    this.socketFull = false;
+    netSocket.drainHandler(this::onSocketDrain);
+  }
+
+  /**
+   * take over the ownership of buf
+   * it will be added to a CompositeByteBuf and released by netty after flushed to socket
+   *
+   * buf is a whole tcp package, will be compressed if negotiated
+   *
+   * @return false if rejected by TcpWriteConfig.queueFullPolicy, buf is released
+   */
+  public boolean write(ByteBuf buf) {
+    return writeBuffer(compressFrame(buf));
+  }
+
+  /**
+   * same as write(ByteBuf), and commit new header entries of os after it written to socket
+   */
+  public boolean write(TcpOutputStream os) {
+    Runnable headerCommitter = os.getHeaderCommitter();
+    if (!write(os.detachByteBuf())) {
+      return false;
+    }
+
+    commitHeaderAfterWrite(headerCommitter);
+    return true;
+  }
+
+  /**
+   * new header entries can not be referenced before written
+   * otherwise packages of other sender threads may reference them and be written before them
+   */
+  protected void commitHeaderAfterWrite(Runnable headerCommitter) {
+    if (headerCommitter != null) {
+      waitWriteQueueDrain(v -> headerCommitter.run());
+    }
   }
 
-  public void write(ByteBuf buf) {
+  /**
+   * same as write, but buf can contain multiple packages, and will not be compressed
+   */
+  protected boolean writeBuffer(ByteBuf buf) {
+    int len = buf.readableBytes();
+    if (isWriteQueueOverflow(len) && !onWriteQueueFull(len)) {
+      buf.release();
+      writeMetric.onReject();
+      return false;
+    }
+
+    writeQueueBytes.addAndGet(len);
     writeQueue.add(buf);
     long oldSize = writeQueueSize.getAndIncrement();
     if (oldSize == 0) {
       scheduleWrite();
     }
+    return true;
+  }
+
+  /**
+   * for CALLBACK policy, sender should stop write when this is true, and wait for drainHandler
+   */
+  public boolean writeQueueFull() {
+    if (writeQueueBytes.get() >= writeConfig.getMaxQueueBytes()) {
+      needNotifyDrain = true;
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * socket is not writable, buffers are kept in write queue until socket drained
+   * unlike writeQueueFull, it works even if maxQueueBytes is not limited
+   */
+  public boolean isSocketFull() {
+    return socketFull;
+  }
+
+  /**
+   * invoked in context thread, when write queue bytes drop to half of maxQueueBytes after writeQueueFull
+   */
+  public void drainHandler(Handler<Void> drainHandler) {
+    this.drainHandler = drainHandler;
+  }
+
+  /**
+   * waiter will be invoked once in context thread, after all queued buffers are written to socket
+   */
+  public void waitWriteQueueDrain(Handler<Void> waiter) {
+    drainWaiters.add(waiter);
+    if (writeQueueSize.get() == 0) {
+      // maybe already drained before added
+      context.runOnContext(v -> onWriteQueueDrained());
+    }
+  }
+
+  // soft limit, concurrent senders may exceed it a little
+  private boolean isWriteQueueOverflow(int len) {
+    long queueBytes = writeQueueBytes.get();
+    // always accept if queue is empty, otherwise a big package can never be sent
+    return queueBytes != 0 && queueBytes + len > writeConfig.getMaxQueueBytes();
+  }
+
+  // return true if can continue write
+  private boolean onWriteQueueFull(int len) {
+    switch (writeConfig.getQueueFullPolicy()) {
+      case CALLBACK:
+        needNotifyDrain = true;
+        return true;
+      case BLOCK:
+        return waitWriteQueueSpace(len);
+      default:
+        return false;
+    }
+  }
+
+  private boolean waitWriteQueueSpace(int len) {
+    // block eventloop will block all connections of it, include this one
+    if (Context.isOnEventLoopThread()) {
+      return false;
+    }
+
+    long start = System.nanoTime();
+    long deadline = start + TimeUnit.MILLISECONDS.toNanos(writeConfig.getMsBlockTimeout());
+    queueSpaceLock.lock();
+    blockedSenders++;
+    try {
+      while (isWriteQueueOverflow(len)) {
+        long nsWait = deadline - System.nanoTime();
+        if (nsWait <= 0) {
+          return false;
+        }
+        queueSpaceAvailable.awaitNanos(nsWait);
+      }
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    } finally {
+      blockedSenders--;
+      queueSpaceLock.unlock();
+      writeMetric.addSenderBlockTime(System.nanoTime() - start);
+    }
   }
 
   // notify context thread to write
   protected void scheduleWrite() {
+    long usFlushDelay = writeConfig.getUsFlushDelay();
+    if (usFlushDelay > 0) {
+      // vertx timer is millisecond level, so use netty eventloop directly
+      ContextInternal contextInternal = (ContextInternal) context;
+      contextInternal.nettyEventLoop().schedule(() -> {
+        contextInternal.executeFromIO(v -> writeInContext());
+      }, usFlushDelay, TimeUnit.MICROSECONDS);
+      return;
+    }
+
     context.runOnContext(v -> {
       writeInContext();
     });
   }
 
   protected void writeInContext() {
-    CompositeByteBuf cbb = ByteBufAllocator.DEFAULT.compositeBuffer();
+    if (socketFull) {
+      // continue in onSocketDrain
+      return;
+    }
+
+    int maxComponents = writeConfig.getMaxComponentsPerFlush();
+    int maxBytes = writeConfig.getMaxBytesPerFlush();
+    CompositeByteBuf cbb = null;
     for (; ; ) {
       ByteBuf buf = writeQueue.poll();
       if (buf == null) {
@@ -108,15 +439,122 @@ public class TcpConnection {
       }
 
       writeQueueSize.decrementAndGet();
+      writeQueueBytes.addAndGet(-buf.readableBytes());
+      if (cbb == null) {
+        cbb = ByteBufAllocator.DEFAULT.compositeBuffer(maxComponents);
+      }
       cbb.addComponent(true, buf);
 
-      if (cbb.numComponents() == cbb.maxNumComponents()) {
-        netSocket.write(Buffer.buffer(cbb));
-        cbb = ByteBufAllocator.DEFAULT.compositeBuffer();
+      if (cbb.numComponents() >= maxComponents || cbb.readableBytes() >= maxBytes) {
+        flush(cbb);
+        cbb = null;
+
+        if (checkSocketFull()) {
+          // remain buffers in queue, producer will not schedule write again because writeQueueSize is not 0
+          break;
+        }
+      }
+    }
+    if (cbb != null) {
+      flush(cbb);
+      // following writes are kept in queue until socket drained
+      checkSocketFull();
+    }
+
+    onWriteQueueDrained();
+  }
+
+  private boolean checkSocketFull() {
+    if (netSocket.writeQueueFull()) {
+      socketFull = true;
+      socketFullTime = System.nanoTime();
+      return true;
+    }
+    return false;
+  }
+
+  private void flush(CompositeByteBuf cbb) {
+    writeMetric.onFlush(cbb.readableBytes(), cbb.numComponents());
+    writeToSocket(cbb);
+  }
+
+  /**
+   * take over the ownership of buf, netty releases it after written to socket
+   * not write by netSocket.write(Buffer.buffer(buf)), vertx 3.8 wraps it as unreleasable, pooled buffers leak
+   */
+  protected void writeToSocket(ByteBuf buf) {
+    NetSocketImpl socket = (NetSocketImpl) netSocket;
+    long len = buf.readableBytes();
+    try {
+      socket.writeMessage(buf);
+    } catch (Throwable e) {
+      // socket closed, buf not transferred to netty
+      buf.release();
+      throw e;
+    }
+    socket.reportBytesWritten(len);
+  }
+
+  private void onSocketDrain(Void v) {
+    if (!socketFull) {
+      return;
+    }
+
+    socketFull = false;
+    writeMetric.addSocketStallTime(System.nanoTime() - socketFullTime);
+    writeInContext();
+  }
+
+  private void onWriteQueueDrained() {
+    if (blockedSenders > 0) {
+      queueSpaceLock.lock();
+      try {
+        queueSpaceAvailable.signalAll();
+      } finally {
+        queueSpaceLock.unlock();
+      }
+    }
+
+    if (!socketFull) {
+      notifyDrainWaiters();
+    }
+
+    if (needNotifyDrain && writeQueueBytes.get() <= writeConfig.getMaxQueueBytes() / 2) {
+      needNotifyDrain = false;
+      Handler<Void> handler = drainHandler;
+      if (handler != null) {
+        handler.handle(null);
       }
     }
-    if (cbb.isReadable()) {
-      netSocket.write(Buffer.buffer(cbb));
+  }
+
+  private void notifyDrainWaiters() {
+    for (; ; ) {
+      Handler<Void> waiter = drainWaiters.poll();
+      if (waiter == null) {
+        return;
+      }
+
+      waiter.handle(null);
     }
   }
+
+  /**
+   * release buffers not written yet, should be invoked when the connection closed
+   */
+  protected void clearWriteQueue() {
+    for (; ; ) {
+      ByteBuf buf = writeQueue.poll();
+      if (buf == null) {
+        break;
+      }
+
+      writeQueueSize.decrementAndGet();
+      writeQueueBytes.addAndGet(-buf.readableBytes());
+      buf.release();
+    }
+    socketFull = false;
+
+    onWriteQueueDrained();
+  }
 }
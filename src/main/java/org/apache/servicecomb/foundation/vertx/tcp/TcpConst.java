@@ -21,4 +21,43 @@ public final class TcpConst {
   }
 
   public static final String LOGIN = "login";
+
+  // endpoint query: min connections of the endpoint in one pool
+  public static final String CONNECTIONS = "connections";
+
+  // endpoint query: max connections of the endpoint in one pool
+  public static final String MAX_CONNECTIONS = "maxConnections";
+
+  // high 8 bits of headerLen in tcp header are flags
+  // a flag must not be used before both sides negotiated it in login
+  public static final int FLAGS_MASK = 0xFF000000;
+
+  public static final int HEADER_LEN_MASK = 0x00FFFFFF;
+
+  // payload is [int uncompressed len][compressed header + body]
+  public static final int FLAG_COMPRESSED = 0x80000000;
+
+  // first package of a streaming message: header + first part of body, remain body in chunks
+  public static final int FLAG_STREAM = 0x40000000;
+
+  // continuation of a streaming message, headerLen is 0
+  public static final int FLAG_STREAM_CHUNK = 0x20000000;
+
+  // with FLAG_STREAM_CHUNK, last chunk
+  public static final int FLAG_STREAM_END = 0x10000000;
+
+  // with FLAG_STREAM_CHUNK, sender failed, receiver should discard the message
+  public static final int FLAG_STREAM_ABORT = 0x08000000;
+
+  // reply of a request rejected by server admission control, no header and body
+  public static final int FLAG_OVERLOADED = 0x04000000;
+
+  // ping from client, msgId is nanoTime of client when sent
+  public static final int FLAG_HEARTBEAT = 0x02000000;
+
+  // pong from server, msgId is the same as ping
+  public static final int FLAG_HEARTBEAT_ACK = 0x01000000;
+
+  // packages only has tcp header, not dispatched to business
+  public static final int CONTROL_FLAGS = FLAG_OVERLOADED | FLAG_HEARTBEAT | FLAG_HEARTBEAT_ACK;
 }
@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.servicecomb.foundation.vertx.tcp;
+
+import io.vertx.core.Context;
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.streams.ReadStream;
+import io.vertx.core.streams.impl.InboundBuffer;
+
+/**
+ * body of a received streaming message
+ * chunks are fed in connection context, and buffered at most maxBufferedChunks before pause the connection
+ */
+public class TcpInboundStream implements ReadStream<Buffer> {
+  private final TcpInboundStreams owner;
+
+  private final Context context;
+
+  private final long msgId;
+
+  private final InboundBuffer<Buffer> pending;
+
+  private Handler<Void> endHandler;
+
+  private Handler<Throwable> exceptionHandler;
+
+  private boolean userPaused;
+
+  // only access in context thread
+  private boolean congested;
+
+  private boolean ended;
+
+  private boolean endNotified;
+
+  TcpInboundStream(TcpInboundStreams owner, Context context, long msgId, int maxBufferedChunks) {
+    this.owner = owner;
+    this.context = context;
+    this.msgId = msgId;
+    this.pending = new InboundBuffer<>(context, maxBufferedChunks);
+    // data before handler set will not lost
+    pending.pause();
+    pending.drainHandler(v -> onDrain());
+    pending.emptyHandler(v -> checkEnd());
+  }
+
+  public long getMsgId() {
+    return msgId;
+  }
+
+  void onChunk(Buffer chunk) {
+    if (!pending.write(chunk) && !congested) {
+      congested = true;
+      owner.onCongested();
+    }
+  }
+
+  void onEnd() {
+    ended = true;
+    checkEnd();
+  }
+
+  void onAbort(Throwable cause) {
+    ended = true;
+    endNotified = true;
+    pending.clear();
+    onDrain();
+
+    Handler<Throwable> handler = exceptionHandler;
+    if (handler != null) {
+      handler.handle(cause);
+    }
+  }
+
+  private void onDrain() {
+    if (congested) {
+      congested = false;
+      owner.onDrained();
+    }
+  }
+
+  private void checkEnd() {
+    if (!ended || endNotified || !pending.isEmpty()) {
+      return;
+    }
+
+    Handler<Void> handler = endHandler;
+    if (handler != null) {
+      endNotified = true;
+      handler.handle(null);
+    }
+  }
+
+  @Override
+  public ReadStream<Buffer> exceptionHandler(Handler<Throwable> handler) {
+    this.exceptionHandler = handler;
+    return this;
+  }
+
+  @Override
+  public ReadStream<Buffer> handler(Handler<Buffer> handler) {
+    pending.handler(handler);
+    if (handler != null && !userPaused) {
+      pending.resume();
+    }
+    return this;
+  }
+
+  @Override
+  public ReadStream<Buffer> pause() {
+    userPaused = true;
+    pending.pause();
+    return this;
+  }
+
+  @Override
+  public ReadStream<Buffer> resume() {
+    userPaused = false;
+    pending.resume();
+    return this;
+  }
+
+  @Override
+  public ReadStream<Buffer> fetch(long amount) {
+    pending.fetch(amount);
+    return this;
+  }
+
+  @Override
+  public ReadStream<Buffer> endHandler(Handler<Void> endHandler) {
+    this.endHandler = endHandler;
+    context.runOnContext(v -> checkEnd());
+    return this;
+  }
+}
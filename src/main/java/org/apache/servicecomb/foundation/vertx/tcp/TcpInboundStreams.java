@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.servicecomb.foundation.vertx.tcp;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.servicecomb.foundation.common.concurrent.ConcurrentLongHashMap;
+import org.apache.servicecomb.foundation.vertx.server.TcpStreamFrameHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.vertx.core.Context;
+import io.vertx.core.buffer.Buffer;
+
+/**
+ * assemble streaming messages of one connection, all methods are invoked in connection context
+ *
+ * tcp has no window for each message, so if any stream is congested, the whole connection is paused
+ * until it's drained
+ */
+public class TcpInboundStreams implements TcpStreamFrameHandler {
+  private static final Logger LOGGER = LoggerFactory.getLogger(TcpInboundStreams.class);
+
+  public static final int DEFAULT_MAX_BUFFERED_CHUNKS = 16;
+
+  private final Context context;
+
+  private final TcpReadControl readControl;
+
+  private final TcpStreamHandler streamHandler;
+
+  private final int maxBufferedChunks;
+
+  // key is msgId
+  private final ConcurrentLongHashMap<TcpInboundStream> streams = new ConcurrentLongHashMap<>(16);
+
+  private int congestedCount;
+
+  public TcpInboundStreams(Context context, TcpReadControl readControl, TcpStreamHandler streamHandler) {
+    this(context, readControl, streamHandler, DEFAULT_MAX_BUFFERED_CHUNKS);
+  }
+
+  public TcpInboundStreams(Context context, TcpReadControl readControl, TcpStreamHandler streamHandler,
+      int maxBufferedChunks) {
+    this.context = context;
+    this.readControl = readControl;
+    this.streamHandler = streamHandler;
+    this.maxBufferedChunks = maxBufferedChunks;
+  }
+
+  public int getStreamCount() {
+    return streams.size();
+  }
+
+  @Override
+  public void handle(long msgId, int flags, Buffer headerBuffer, Buffer bodyBuffer) {
+    if ((flags & TcpConst.FLAG_STREAM) != 0) {
+      TcpInboundStream stream = new TcpInboundStream(this, context, msgId, maxBufferedChunks);
+      streams.put(msgId, stream);
+      streamHandler.handle(msgId, headerBuffer, stream);
+      if (bodyBuffer != null) {
+        stream.onChunk(bodyBuffer);
+      }
+      return;
+    }
+
+    TcpInboundStream stream = streams.get(msgId);
+    if (stream == null) {
+      // maybe already aborted
+      LOGGER.debug("discard chunk of unknown stream, msgId={}.", msgId);
+      return;
+    }
+
+    if (bodyBuffer != null) {
+      stream.onChunk(bodyBuffer);
+    }
+
+    if ((flags & TcpConst.FLAG_STREAM_ABORT) != 0) {
+      streams.remove(msgId);
+      stream.onAbort(new IllegalStateException(String.format("stream aborted by sender, msgId=%d.", msgId)));
+      return;
+    }
+
+    if ((flags & TcpConst.FLAG_STREAM_END) != 0) {
+      streams.remove(msgId);
+      stream.onEnd();
+    }
+  }
+
+  void onCongested() {
+    if (congestedCount++ == 0) {
+      readControl.pause();
+    }
+  }
+
+  void onDrained() {
+    if (--congestedCount == 0) {
+      readControl.resume();
+    }
+  }
+
+  /**
+   * should be invoked when the connection closed
+   */
+  public void abortAll(Throwable cause) {
+    List<TcpInboundStream> aborted = new ArrayList<>();
+    streams.removeAll((msgId, stream) -> aborted.add(stream));
+    for (TcpInboundStream stream : aborted) {
+      stream.onAbort(cause);
+    }
+  }
+}
@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.servicecomb.foundation.vertx.tcp;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * accounting of bytes held by incomplete received packages
+ * reader should pause the socket when reserve failed, and wait for others release
+ *
+ * always allow reserve when nothing reserved, so a single big package can not deadlock
+ */
+public class TcpMemoryBudget {
+  public static final TcpMemoryBudget GLOBAL = new TcpMemoryBudget(Runtime.getRuntime().maxMemory() / 4);
+
+  /**
+   * handle of a waiting reservation, used to cancel it
+   */
+  public static class Waiter {
+    final long bytes;
+
+    final Runnable callback;
+
+    Waiter(long bytes, Runnable callback) {
+      this.bytes = bytes;
+      this.callback = callback;
+    }
+  }
+
+  private volatile long maxBytes;
+
+  private final AtomicLong usedBytes = new AtomicLong();
+
+  private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+
+  public TcpMemoryBudget(long maxBytes) {
+    this.maxBytes = maxBytes;
+  }
+
+  public long getMaxBytes() {
+    return maxBytes;
+  }
+
+  public void setMaxBytes(long maxBytes) {
+    this.maxBytes = maxBytes;
+    notifyWaiters();
+  }
+
+  public long getUsedBytes() {
+    return usedBytes.get();
+  }
+
+  public int getWaiterCount() {
+    return waiters.size();
+  }
+
+  private boolean isAvailable(long used, long bytes) {
+    return used == 0 || used + bytes <= maxBytes;
+  }
+
+  /**
+   * fail if someone is waiting, not jump over them
+   */
+  public boolean tryReserve(long bytes) {
+    if (!waiters.isEmpty()) {
+      return false;
+    }
+
+    return doReserve(bytes);
+  }
+
+  private boolean doReserve(long bytes) {
+    for (; ; ) {
+      long used = usedBytes.get();
+      if (!isAvailable(used, bytes)) {
+        return false;
+      }
+
+      if (usedBytes.compareAndSet(used, used + bytes)) {
+        return true;
+      }
+    }
+  }
+
+  public void release(long bytes) {
+    usedBytes.addAndGet(-bytes);
+    notifyWaiters();
+  }
+
+  /**
+   * callback is invoked once in the releaser's thread after bytes reserved for the waiter, must release them later
+   * in FIFO order and stop at the first one not fit, so big packages will not starve
+   */
+  public Waiter waitAvailable(long bytes, Runnable callback) {
+    Waiter waiter = new Waiter(bytes, callback);
+    waiters.add(waiter);
+    // maybe released before added
+    notifyWaiters();
+    return waiter;
+  }
+
+  /**
+   * remove the waiter when its connection closed or wait timeout, so it will not block the waiters behind it
+   *
+   * @return false if bytes already reserved for the waiter, then callback is invoked or will be invoked
+   */
+  public boolean cancelWait(Waiter waiter) {
+    synchronized (waiters) {
+      if (!waiters.remove(waiter)) {
+        return false;
+      }
+    }
+
+    // maybe the head is removed, others behind it can be afforded now
+    notifyWaiters();
+    return true;
+  }
+
+  // reserve for the waiter before wake it, so one release only wakes waiters it can afford
+  private void notifyWaiters() {
+    for (; ; ) {
+      Waiter waiter;
+      synchronized (waiters) {
+        waiter = waiters.peek();
+        if (waiter == null || !doReserve(waiter.bytes)) {
+          return;
+        }
+        waiters.poll();
+      }
+
+      waiter.callback.run();
+    }
+  }
+}
@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.servicecomb.foundation.vertx.tcp;
+
+import org.apache.servicecomb.foundation.vertx.server.TcpParser;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.streams.ReadStream;
+
+/**
+ * send body of a streaming message in chunks, after the first package(with TcpConst.FLAG_STREAM) is written
+ * source is paused when write queue of the connection is too big, so memory is flat for any body size
+ */
+public class TcpOutboundStream {
+  private final TcpConnection connection;
+
+  private final long msgId;
+
+  private final ReadStream<Buffer> source;
+
+  private final int chunkSize;
+
+  private final long maxQueueBytes;
+
+  private Handler<Throwable> failureHandler;
+
+  // head package written to buffer, chunks can be sent
+  private volatile boolean started;
+
+  private volatile boolean stopped;
+
+  private volatile boolean paused;
+
+  public TcpOutboundStream(TcpConnection connection, long msgId, ReadStream<Buffer> source) {
+    this.connection = connection;
+    this.msgId = msgId;
+    this.source = source;
+    this.chunkSize = connection.getWriteConfig().getStreamChunkSize();
+    this.maxQueueBytes = connection.getWriteConfig().getStreamQueueBytes();
+  }
+
+  public long getMsgId() {
+    return msgId;
+  }
+
+  /**
+   * invoked when source failed or chunk is rejected by write queue, receiver is notified by abort
+   */
+  public void setFailureHandler(Handler<Throwable> failureHandler) {
+    this.failureHandler = failureHandler;
+  }
+
+  public synchronized void start() {
+    started = true;
+    if (stopped) {
+      // stopped before head package written, eg: timeout
+      writeChunk(TcpConst.FLAG_STREAM_ABORT, null);
+      return;
+    }
+
+    source.exceptionHandler(this::onSourceFailed);
+    source.endHandler(v -> onSourceEnd());
+    source.handler(this::onData);
+  }
+
+  /**
+   * stop send, eg: got response before send finished
+   */
+  public synchronized void stop() {
+    if (stopped) {
+      return;
+    }
+
+    stopped = true;
+    source.pause();
+    if (!started) {
+      // head package not sent, eg: connect failed, receiver knows nothing about the stream
+      return;
+    }
+
+    source.handler(null);
+    writeChunk(TcpConst.FLAG_STREAM_ABORT, null);
+  }
+
+  private void onData(Buffer data) {
+    if (stopped) {
+      return;
+    }
+
+    ByteBuf byteBuf = data.getByteBuf();
+    int idx = byteBuf.readerIndex();
+    int end = byteBuf.writerIndex();
+    while (idx < end) {
+      int len = Math.min(chunkSize, end - idx);
+      if (!writeChunk(0, byteBuf.retainedSlice(idx, len))) {
+        fail(new IllegalStateException(
+            String.format("write queue is full when send stream, msgId=%d.", msgId)));
+        return;
+      }
+      idx += len;
+    }
+
+    if (!paused && connection.getWriteQueueBytes() >= maxQueueBytes) {
+      paused = true;
+      source.pause();
+      connection.waitWriteQueueDrain(v -> {
+        paused = false;
+        if (!stopped) {
+          source.resume();
+        }
+      });
+    }
+  }
+
+  private void onSourceEnd() {
+    if (stopped) {
+      return;
+    }
+
+    stopped = true;
+    writeChunk(TcpConst.FLAG_STREAM_END, null);
+  }
+
+  private void onSourceFailed(Throwable e) {
+    fail(e);
+  }
+
+  private void fail(Throwable e) {
+    if (stopped) {
+      return;
+    }
+
+    stop();
+    if (failureHandler != null) {
+      failureHandler.handle(e);
+    }
+  }
+
+  private boolean writeChunk(int flags, ByteBuf chunk) {
+    int len = chunk == null ? 0 : chunk.readableBytes();
+    ByteBuf header = Unpooled.buffer(TcpParser.TCP_HEADER_LENGTH);
+    header.writeBytes(TcpParser.TCP_MAGIC);
+    header.writeLong(msgId);
+    header.writeInt(len);
+    header.writeInt(TcpConst.FLAG_STREAM_CHUNK | flags);
+
+    return connection.write(chunk == null ? header : Unpooled.wrappedBuffer(header, chunk));
+  }
+}
@@ -20,6 +20,8 @@ package org.apache.servicecomb.foundation.vertx.tcp;
 import org.apache.servicecomb.foundation.vertx.server.TcpParser;
 import org.apache.servicecomb.foundation.vertx.stream.BufferOutputStream;
 
+import io.netty.buffer.ByteBufAllocator;
+
 /**
  * TcpOutputStream
  *
@@ -28,9 +30,22 @@ import org.apache.servicecomb.foundation.vertx.stream.BufferOutputStream;
 public class TcpOutputStream extends BufferOutputStream {
   private long msgId;
 
+  // commit new header entries after this package written to socket
+  private Runnable headerCommitter;
+
   public TcpOutputStream(long msgId) {
     super();
 
+    init(msgId);
+  }
+
+  public TcpOutputStream(long msgId, ByteBufAllocator allocator, int initialCapacity) {
+    super(allocator, initialCapacity);
+
+    init(msgId);
+  }
+
+  private void init(long msgId) {
     this.msgId = msgId;
     write(TcpParser.TCP_MAGIC);
     writeLong(msgId);
@@ -40,6 +55,29 @@ public class TcpOutputStream extends BufferOutputStream {
     return msgId;
   }
 
+  /**
+   * replace msgId already written in the tcp header
+   */
+  public void setMsgId(long msgId) {
+    this.msgId = msgId;
+    getByteBuf().setLong(getByteBuf().readerIndex() + TcpParser.MSG_ID_OFFSET, msgId);
+  }
+
+  public void addHeaderCommitter(Runnable committer) {
+    Runnable prev = headerCommitter;
+    headerCommitter = prev == null ? committer : () -> {
+      prev.run();
+      committer.run();
+    };
+  }
+
+  /**
+   * null if no new header entries
+   */
+  public Runnable getHeaderCommitter() {
+    return headerCommitter;
+  }
+
   public void writeLength(int totalLen, int headerLen) {
     writeInt(totalLen);
     writeInt(headerLen);
@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.servicecomb.foundation.vertx.tcp;
+
+/**
+ * limits of received packages
+ */
+public class TcpReadConfig {
+  public static final int DEFAULT_MAX_FRAME_SIZE = 64 * 1024 * 1024;
+
+  public static final int DEFAULT_MAX_HEADER_LENGTH = 1024 * 1024;
+
+  public static final long DEFAULT_MS_MEMORY_BUDGET_WAIT_TIMEOUT = 30_000;
+
+  // header + body, for compressed package, both compressed and uncompressed size are checked
+  private int maxFrameSize = DEFAULT_MAX_FRAME_SIZE;
+
+  private int maxHeaderLength = DEFAULT_MAX_HEADER_LENGTH;
+
+  // shared by all connections with the same budget
+  private TcpMemoryBudget memoryBudget = TcpMemoryBudget.GLOBAL;
+
+  // close the connection when paused by memory budget too long, less than or equal to 0 means wait forever
+  private long msMemoryBudgetWaitTimeout = DEFAULT_MS_MEMORY_BUDGET_WAIT_TIMEOUT;
+
+  public int getMaxFrameSize() {
+    return maxFrameSize;
+  }
+
+  public void setMaxFrameSize(int maxFrameSize) {
+    this.maxFrameSize = maxFrameSize;
+  }
+
+  public int getMaxHeaderLength() {
+    return maxHeaderLength;
+  }
+
+  public void setMaxHeaderLength(int maxHeaderLength) {
+    this.maxHeaderLength = maxHeaderLength;
+  }
+
+  public TcpMemoryBudget getMemoryBudget() {
+    return memoryBudget;
+  }
+
+  public void setMemoryBudget(TcpMemoryBudget memoryBudget) {
+    this.memoryBudget = memoryBudget;
+  }
+
+  public long getMsMemoryBudgetWaitTimeout() {
+    return msMemoryBudgetWaitTimeout;
+  }
+
+  public void setMsMemoryBudgetWaitTimeout(long msMemoryBudgetWaitTimeout) {
+    this.msMemoryBudgetWaitTimeout = msMemoryBudgetWaitTimeout;
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.servicecomb.foundation.vertx.tcp;
+
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.core.net.NetSocket;
+
+/**
+ * pause and resume reading of one socket for different reasons
+ * eg: memory budget, inflight limit, congested stream, relay backpressure
+ *
+ * socket is resumed only when every pause is resumed, so one reason not undo another one
+ * each reason must pair its pause and resume, state is only changed in context thread
+ */
+public class TcpReadControl {
+  private final Context context;
+
+  private final NetSocket netSocket;
+
+  // only access in context thread
+  private int pauseCount;
+
+  public TcpReadControl(Context context, NetSocket netSocket) {
+    this.context = context;
+    this.netSocket = netSocket;
+  }
+
+  public int getPauseCount() {
+    return pauseCount;
+  }
+
+  public void pause() {
+    if (!isInContext()) {
+      context.runOnContext(v -> pause());
+      return;
+    }
+
+    if (pauseCount++ == 0) {
+      netSocket.pause();
+    }
+  }
+
+  public void resume() {
+    if (!isInContext()) {
+      context.runOnContext(v -> resume());
+      return;
+    }
+
+    if (pauseCount == 0) {
+      return;
+    }
+    if (--pauseCount == 0) {
+      netSocket.resume();
+    }
+  }
+
+  private boolean isInContext() {
+    return Vertx.currentContext() == context && Context.isOnEventLoopThread();
+  }
+}
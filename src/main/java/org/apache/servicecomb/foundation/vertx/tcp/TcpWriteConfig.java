@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.servicecomb.foundation.vertx.tcp;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * write coalescing and backpressure of TcpConnection
+ */
+public class TcpWriteConfig {
+  public static final int DEFAULT_MAX_COMPONENTS_PER_FLUSH = 16;
+
+  public static final int DEFAULT_STREAM_CHUNK_SIZE = 64 * 1024;
+
+  public static final long DEFAULT_STREAM_QUEUE_BYTES = 1024 * 1024;
+
+  // max bytes of one CompositeByteBuf write to socket
+  private int maxBytesPerFlush = Integer.MAX_VALUE;
+
+  // max buffers of one CompositeByteBuf write to socket
+  private int maxComponentsPerFlush = DEFAULT_MAX_COMPONENTS_PER_FLUSH;
+
+  // wait some time before flush, so that more buffers can be coalesced
+  // 0 means flush as soon as possible
+  private long usFlushDelay;
+
+  // soft limit, always accept if the queue is empty
+  private long maxQueueBytes = Long.MAX_VALUE;
+
+  private TcpWriteQueueFullPolicy queueFullPolicy = TcpWriteQueueFullPolicy.REJECT;
+
+  // only for BLOCK policy
+  private long msBlockTimeout = TimeUnit.SECONDS.toMillis(1);
+
+  // streaming message is split to chunks not bigger than this
+  private int streamChunkSize = DEFAULT_STREAM_CHUNK_SIZE;
+
+  // pause the source stream when write queue bytes reach this
+  private long streamQueueBytes = DEFAULT_STREAM_QUEUE_BYTES;
+
+  public int getMaxBytesPerFlush() {
+    return maxBytesPerFlush;
+  }
+
+  public void setMaxBytesPerFlush(int maxBytesPerFlush) {
+    this.maxBytesPerFlush = maxBytesPerFlush;
+  }
+
+  public int getMaxComponentsPerFlush() {
+    return maxComponentsPerFlush;
+  }
+
+  public void setMaxComponentsPerFlush(int maxComponentsPerFlush) {
+    this.maxComponentsPerFlush = maxComponentsPerFlush;
+  }
+
+  public long getUsFlushDelay() {
+    return usFlushDelay;
+  }
+
+  public void setUsFlushDelay(long usFlushDelay) {
+    this.usFlushDelay = usFlushDelay;
+  }
+
+  public long getMaxQueueBytes() {
+    return maxQueueBytes;
+  }
+
+  public void setMaxQueueBytes(long maxQueueBytes) {
+    this.maxQueueBytes = maxQueueBytes;
+  }
+
+  public TcpWriteQueueFullPolicy getQueueFullPolicy() {
+    return queueFullPolicy;
+  }
+
+  public void setQueueFullPolicy(TcpWriteQueueFullPolicy queueFullPolicy) {
+    this.queueFullPolicy = queueFullPolicy;
+  }
+
+  public long getMsBlockTimeout() {
+    return msBlockTimeout;
+  }
+
+  public void setMsBlockTimeout(long msBlockTimeout) {
+    this.msBlockTimeout = msBlockTimeout;
+  }
+
+  public int getStreamChunkSize() {
+    return streamChunkSize;
+  }
+
+  public void setStreamChunkSize(int streamChunkSize) {
+    this.streamChunkSize = streamChunkSize;
+  }
+
+  public long getStreamQueueBytes() {
+    return streamQueueBytes;
+  }
+
+  public void setStreamQueueBytes(long streamQueueBytes) {
+    this.streamQueueBytes = streamQueueBytes;
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.servicecomb.foundation.vertx.tcp.compress;
+
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * jdk deflate, better ratio, slower than snappy
+ */
+public class DeflateFrameCompressor implements FrameCompressor {
+  public static final String NAME = "deflate";
+
+  private static final int MIN_WRITABLE = 256;
+
+  // Deflater/Inflater hold native memory, reuse them in each thread
+  private static final ThreadLocal<Deflater> DEFLATER = ThreadLocal.withInitial(() -> new Deflater(Deflater.BEST_SPEED));
+
+  private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(Inflater::new);
+
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  // Deflater/Inflater only accept byte[]
+  private static byte[] toArray(ByteBuf buf) {
+    byte[] bytes = new byte[buf.readableBytes()];
+    buf.getBytes(buf.readerIndex(), bytes);
+    return bytes;
+  }
+
+  @Override
+  public void compress(ByteBuf src, ByteBuf dst) {
+    Deflater deflater = DEFLATER.get();
+    deflater.reset();
+
+    int len = src.readableBytes();
+    if (src.hasArray()) {
+      deflater.setInput(src.array(), src.arrayOffset() + src.readerIndex(), len);
+    } else {
+      deflater.setInput(toArray(src));
+    }
+    deflater.finish();
+    src.skipBytes(len);
+
+    byte[] tmp = dst.hasArray() ? null : new byte[Math.max(MIN_WRITABLE, len / 2)];
+    while (!deflater.finished()) {
+      if (tmp == null) {
+        dst.ensureWritable(Math.max(MIN_WRITABLE, len / 2));
+        int n = deflater.deflate(dst.array(), dst.arrayOffset() + dst.writerIndex(), dst.writableBytes());
+        dst.writerIndex(dst.writerIndex() + n);
+        continue;
+      }
+
+      int n = deflater.deflate(tmp);
+      dst.writeBytes(tmp, 0, n);
+    }
+  }
+
+  @Override
+  public void decompress(ByteBuf src, ByteBuf dst) {
+    Inflater inflater = INFLATER.get();
+    inflater.reset();
+
+    int len = src.readableBytes();
+    if (src.hasArray()) {
+      inflater.setInput(src.array(), src.arrayOffset() + src.readerIndex(), len);
+    } else {
+      inflater.setInput(toArray(src));
+    }
+    src.skipBytes(len);
+
+    byte[] tmp = dst.hasArray() ? null : new byte[Math.max(MIN_WRITABLE, len * 2)];
+    try {
+      while (!inflater.finished()) {
+        int n;
+        if (tmp == null) {
+          // respect maxCapacity of dst, caller use it to limit the uncompressed size
+          int writable = Math.min(dst.maxWritableBytes(), Math.max(MIN_WRITABLE, len * 2));
+          if (writable == 0) {
+            throw new IllegalStateException("deflate data exceed the limit.");
+          }
+          dst.ensureWritable(writable);
+          n = inflater.inflate(dst.array(), dst.arrayOffset() + dst.writerIndex(), dst.writableBytes());
+          dst.writerIndex(dst.writerIndex() + n);
+        } else {
+          n = inflater.inflate(tmp);
+          dst.writeBytes(tmp, 0, n);
+        }
+
+        if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          throw new IllegalStateException("truncated deflate data.");
+        }
+      }
+    } catch (DataFormatException e) {
+      throw new IllegalStateException("invalid deflate data.", e);
+    }
+  }
+}
@@ -0,0 +1,33 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.servicecomb.foundation.vertx.tcp.compress;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * compress payload of tcp frame, instance must be thread safe
+ */
+public interface FrameCompressor {
+  // used in login negotiation, must be the same in client and server
+  String getName();
+
+  // compress all readable bytes of src, append result to dst
+  void compress(ByteBuf src, ByteBuf dst);
+
+  // decompress all readable bytes of src, append result to dst
+  void decompress(ByteBuf src, ByteBuf dst);
+}
@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.servicecomb.foundation.vertx.tcp.compress;
+
+import java.util.Map;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.servicecomb.foundation.common.concurrent.ConcurrentHashMapEx;
+
+public final class FrameCompressors {
+  private static final Map<String, FrameCompressor> COMPRESSORS = new ConcurrentHashMapEx<>();
+
+  static {
+    register(new SnappyFrameCompressor());
+    register(new DeflateFrameCompressor());
+  }
+
+  private FrameCompressors() {
+  }
+
+  public static void register(FrameCompressor compressor) {
+    COMPRESSORS.put(compressor.getName(), compressor);
+  }
+
+  public static FrameCompressor find(String name) {
+    if (StringUtils.isEmpty(name)) {
+      return null;
+    }
+
+    return COMPRESSORS.get(name);
+  }
+
+  /**
+   * used by server when login
+   *
+   * @param zipNames zip names supported by client, separated by ",", ordered by priority
+   * @return first one supported locally, null if none
+   */
+  public static String negotiate(String zipNames) {
+    if (StringUtils.isEmpty(zipNames)) {
+      return null;
+    }
+
+    for (String name : zipNames.split(",")) {
+      name = name.trim();
+      if (COMPRESSORS.containsKey(name)) {
+        return name;
+      }
+    }
+    return null;
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.servicecomb.foundation.vertx.tcp.header;
+
+import java.nio.charset.StandardCharsets;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+
+/**
+ * header section is a sequence of strings: key1, value1, key2, value2 ...
+ * every string starts with a varint tag:
+ *   (index << 2) | REF:             reference to an entry of the table
+ *   (index << 2) | LITERAL_INDEXED: varint utf8 len + utf8 bytes, and put it to the table at index
+ *   LITERAL:                        varint utf8 len + utf8 bytes, not put to the table
+ *
+ * index of new entry is in the package, so decoder not care about the order that senders encode
+ */
+final class TcpHeaderCodec {
+  static final int REF = 0;
+
+  static final int LITERAL_INDEXED = 1;
+
+  static final int LITERAL = 2;
+
+  static final int TYPE_MASK = 3;
+
+  private TcpHeaderCodec() {
+  }
+
+  static void writeVarInt(ByteBuf out, int value) {
+    while ((value & ~0x7F) != 0) {
+      out.writeByte((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    out.writeByte(value);
+  }
+
+  // read from pos[0] and move it
+  static int readVarInt(ByteBuf buf, int[] pos, int end) {
+    int value = 0;
+    for (int shift = 0; shift < 32; shift += 7) {
+      if (pos[0] >= end) {
+        throw new IllegalStateException("invalid header, truncated varint.");
+      }
+
+      byte b = buf.getByte(pos[0]++);
+      value |= (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IllegalStateException("invalid header, varint too long.");
+  }
+
+  static void writeLiteral(ByteBuf out, int tag, String value) {
+    writeVarInt(out, tag);
+    writeVarInt(out, ByteBufUtil.utf8Bytes(value));
+    out.writeCharSequence(value, StandardCharsets.UTF_8);
+  }
+
+  static int readLength(ByteBuf buf, int[] pos, int end) {
+    int len = readVarInt(buf, pos, end);
+    if (len < 0 || len > end - pos[0]) {
+      throw new IllegalStateException("invalid header, string length out of range, len=" + len);
+    }
+    return len;
+  }
+}
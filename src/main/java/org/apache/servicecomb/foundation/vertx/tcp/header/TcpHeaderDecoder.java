@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.servicecomb.foundation.vertx.tcp.header;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import io.netty.buffer.ByteBuf;
+import io.vertx.core.buffer.Buffer;
+
+/**
+ * one instance for one connection
+ *
+ * learn must be invoked in eventloop by the order of packages, TcpParser do this
+ * decode can be invoked in any thread later, eg: in business executor
+ */
+public class TcpHeaderDecoder {
+  private final AtomicReferenceArray<String> table;
+
+  public TcpHeaderDecoder(int tableSize) {
+    this.table = new AtomicReferenceArray<>(tableSize);
+  }
+
+  public int getTableSize() {
+    return table.length();
+  }
+
+  /**
+   * put new entries of the header to the table, and check references
+   * not change reader index of header
+   *
+   * @throws IllegalStateException if header is invalid
+   */
+  public void learn(ByteBuf header) {
+    int[] pos = {header.readerIndex()};
+    int end = header.writerIndex();
+    while (pos[0] < end) {
+      int tag = TcpHeaderCodec.readVarInt(header, pos, end);
+      int index = tag >>> 2;
+      switch (tag & TcpHeaderCodec.TYPE_MASK) {
+        case TcpHeaderCodec.REF:
+          getEntry(index);
+          break;
+        case TcpHeaderCodec.LITERAL_INDEXED:
+          checkIndex(index);
+          int len = TcpHeaderCodec.readLength(header, pos, end);
+          if (table.get(index) == null) {
+            table.set(index, header.toString(pos[0], len, StandardCharsets.UTF_8));
+          }
+          pos[0] += len;
+          break;
+        case TcpHeaderCodec.LITERAL:
+          int literalLen = TcpHeaderCodec.readLength(header, pos, end);
+          pos[0] += literalLen;
+          break;
+        default:
+          throw new IllegalStateException("invalid header, unknown tag " + tag);
+      }
+    }
+  }
+
+  /**
+   * strings are decoded when the map is accessed first time, so header must not be released before that
+   */
+  public TcpHeaderMap decode(Buffer header) {
+    return new TcpHeaderMap(this, header == null ? null : header.getByteBuf());
+  }
+
+  String getEntry(int index) {
+    checkIndex(index);
+    String value = table.get(index);
+    if (value == null) {
+      throw new IllegalStateException("invalid header, reference to unknown entry " + index);
+    }
+    return value;
+  }
+
+  private void checkIndex(int index) {
+    if (index >= table.length()) {
+      throw new IllegalStateException(
+          String.format("invalid header, index %d exceed table size %d.", index, table.length()));
+    }
+  }
+}
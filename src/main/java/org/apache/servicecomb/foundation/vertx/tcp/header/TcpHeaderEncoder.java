@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.servicecomb.foundation.vertx.tcp.header;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.servicecomb.foundation.vertx.tcp.TcpOutputStream;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * HPACK like header encoder, one instance for one connection, thread safe
+ * table is append only and bounded, after full, new strings are written as literal
+ *
+ * a new entry can be referenced only after the package carries it is written to socket
+ * TcpConnection do this by TcpOutputStream.getHeaderCommitter
+ *
+ * usage:
+ * <pre>
+ *   os.writeLength(0, 0);
+ *   int headerLen = encoder.encode(headers, os);
+ *   // write body, then set totalLen and headerLen
+ * </pre>
+ */
+public class TcpHeaderEncoder {
+  // longer strings are not indexed, they are mostly unique
+  public static final int MAX_INDEXED_LENGTH = 256;
+
+  private static final class TableEntry {
+    final int index;
+
+    volatile boolean committed;
+
+    TableEntry(int index) {
+      this.index = index;
+    }
+  }
+
+  private final int tableSize;
+
+  private final Map<String, TableEntry> table = new ConcurrentHashMap<>();
+
+  private final AtomicInteger nextIndex = new AtomicInteger();
+
+  // values of these keys are never indexed, eg: trace id
+  private final Set<String> neverIndexedKeys = ConcurrentHashMap.newKeySet();
+
+  public TcpHeaderEncoder(int tableSize) {
+    this.tableSize = tableSize;
+  }
+
+  public int getTableSize() {
+    return tableSize;
+  }
+
+  public void addNeverIndexedKey(String key) {
+    neverIndexedKeys.add(key);
+  }
+
+  /**
+   * null key or value is ignored
+   *
+   * @return bytes written
+   */
+  public int encode(Map<String, String> headers, TcpOutputStream os) {
+    ByteBuf out = os.getByteBuf();
+    int start = out.writerIndex();
+    List<TableEntry> newEntries = null;
+    for (Entry<String, String> entry : headers.entrySet()) {
+      if (entry.getKey() == null || entry.getValue() == null) {
+        continue;
+      }
+
+      newEntries = addNewEntry(newEntries, writeString(out, entry.getKey(), true));
+      newEntries = addNewEntry(newEntries,
+          writeString(out, entry.getValue(), !neverIndexedKeys.contains(entry.getKey())));
+    }
+
+    if (newEntries != null) {
+      List<TableEntry> entries = newEntries;
+      os.addHeaderCommitter(() -> entries.forEach(e -> e.committed = true));
+    }
+    return out.writerIndex() - start;
+  }
+
+  private static List<TableEntry> addNewEntry(List<TableEntry> newEntries, TableEntry entry) {
+    if (entry == null) {
+      return newEntries;
+    }
+
+    if (newEntries == null) {
+      newEntries = new ArrayList<>();
+    }
+    newEntries.add(entry);
+    return newEntries;
+  }
+
+  // return entry if write a literal with indexing, otherwise null
+  private TableEntry writeString(ByteBuf out, String value, boolean indexable) {
+    TableEntry entry = table.get(value);
+    if (entry != null) {
+      if (entry.committed) {
+        TcpHeaderCodec.writeVarInt(out, (entry.index << 2) | TcpHeaderCodec.REF);
+        return null;
+      }
+
+      // maybe not written yet, put it again with the same index, decoder accept that
+      TcpHeaderCodec.writeLiteral(out, (entry.index << 2) | TcpHeaderCodec.LITERAL_INDEXED, value);
+      return entry;
+    }
+
+    if (indexable && value.length() <= MAX_INDEXED_LENGTH) {
+      entry = addEntry(value);
+      if (entry != null) {
+        TcpHeaderCodec.writeLiteral(out, (entry.index << 2) | TcpHeaderCodec.LITERAL_INDEXED, value);
+        return entry;
+      }
+    }
+
+    TcpHeaderCodec.writeLiteral(out, TcpHeaderCodec.LITERAL, value);
+    return null;
+  }
+
+  // null if table is full
+  private TableEntry addEntry(String value) {
+    if (nextIndex.get() >= tableSize) {
+      return null;
+    }
+
+    return table.computeIfAbsent(value, v -> {
+      int index = nextIndex.getAndIncrement();
+      return index < tableSize ? new TableEntry(index) : null;
+    });
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.servicecomb.foundation.vertx.tcp.header;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * read only, decoded when accessed first time
+ */
+public class TcpHeaderMap extends AbstractMap<String, String> {
+  private final TcpHeaderDecoder decoder;
+
+  private ByteBuf header;
+
+  private Map<String, String> map;
+
+  TcpHeaderMap(TcpHeaderDecoder decoder, ByteBuf header) {
+    this.decoder = decoder;
+    this.header = header;
+  }
+
+  private Map<String, String> materialize() {
+    if (map != null) {
+      return map;
+    }
+
+    if (header == null) {
+      map = Collections.emptyMap();
+      return map;
+    }
+
+    Map<String, String> result = new LinkedHashMap<>();
+    int[] pos = {header.readerIndex()};
+    int end = header.writerIndex();
+    while (pos[0] < end) {
+      String key = readString(pos, end);
+      if (pos[0] >= end) {
+        throw new IllegalStateException("invalid header, value of " + key + " not found.");
+      }
+      result.put(key, readString(pos, end));
+    }
+    map = Collections.unmodifiableMap(result);
+    header = null;
+    return map;
+  }
+
+  private String readString(int[] pos, int end) {
+    int tag = TcpHeaderCodec.readVarInt(header, pos, end);
+    if ((tag & TcpHeaderCodec.TYPE_MASK) == TcpHeaderCodec.REF) {
+      return decoder.getEntry(tag >>> 2);
+    }
+
+    int len = TcpHeaderCodec.readLength(header, pos, end);
+    String value;
+    if ((tag & TcpHeaderCodec.TYPE_MASK) == TcpHeaderCodec.LITERAL_INDEXED) {
+      // already learned, share the same instance
+      value = decoder.getEntry(tag >>> 2);
+    } else {
+      value = header.toString(pos[0], len, StandardCharsets.UTF_8);
+    }
+    pos[0] += len;
+    return value;
+  }
+
+  @Override
+  public String get(Object key) {
+    return materialize().get(key);
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return materialize().containsKey(key);
+  }
+
+  @Override
+  public int size() {
+    return materialize().size();
+  }
+
+  @Override
+  public Set<Entry<String, String>> entrySet() {
+    return materialize().entrySet();
+  }
+}
@@ -0,0 +1,271 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.servicecomb.foundation.vertx.timer;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.vertx.core.Context;
+
+/**
+ * hashed timing wheel driven by a vertx periodic timer of one context
+ *
+ * newTimeout and cancel can be invoked in any thread, they only add to a CAS queue
+ * all wheel operations and timeout tasks run in the context thread
+ * cost of each tick is proportional to expired and cancelled timeouts, not to all pending timeouts
+ */
+public class TimingWheel {
+  private static final Logger LOGGER = LoggerFactory.getLogger(TimingWheel.class);
+
+  public static final long DEFAULT_MS_TICK = 10;
+
+  public static final int DEFAULT_WHEEL_SIZE = 512;
+
+  public static final class Timeout {
+    private static final int ST_INIT = 0;
+
+    private static final int ST_CANCELLED = 1;
+
+    private static final int ST_EXPIRED = 2;
+
+    private static final AtomicIntegerFieldUpdater<Timeout> STATE_UPDATER =
+        AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+    private final TimingWheel wheel;
+
+    private final long deadline;
+
+    private final Runnable task;
+
+    private volatile int state = ST_INIT;
+
+    // only access in context thread
+    private long remainingRounds;
+
+    private Timeout prev;
+
+    private Timeout next;
+
+    private Bucket bucket;
+
+    Timeout(TimingWheel wheel, long deadline, Runnable task) {
+      this.wheel = wheel;
+      this.deadline = deadline;
+      this.task = task;
+    }
+
+    /**
+     * @return false if already expired or cancelled
+     */
+    public boolean cancel() {
+      if (!STATE_UPDATER.compareAndSet(this, ST_INIT, ST_CANCELLED)) {
+        return false;
+      }
+
+      wheel.cancelledTimeouts.add(this);
+      return true;
+    }
+
+    public boolean isCancelled() {
+      return state == ST_CANCELLED;
+    }
+
+    public boolean isExpired() {
+      return state == ST_EXPIRED;
+    }
+
+    private void expire() {
+      if (!STATE_UPDATER.compareAndSet(this, ST_INIT, ST_EXPIRED)) {
+        return;
+      }
+
+      try {
+        task.run();
+      } catch (Throwable e) {
+        LOGGER.error("timeout task failed.", e);
+      }
+    }
+  }
+
+  // double linked list, so that cancelled timeout can be removed in O(1)
+  private static final class Bucket {
+    private Timeout head;
+
+    private Timeout tail;
+
+    void add(Timeout timeout) {
+      timeout.bucket = this;
+      if (head == null) {
+        head = tail = timeout;
+        return;
+      }
+
+      tail.next = timeout;
+      timeout.prev = tail;
+      tail = timeout;
+    }
+
+    Timeout remove(Timeout timeout) {
+      Timeout next = timeout.next;
+      if (timeout.prev != null) {
+        timeout.prev.next = next;
+      }
+      if (next != null) {
+        next.prev = timeout.prev;
+      }
+      if (timeout == head) {
+        head = next;
+      }
+      if (timeout == tail) {
+        tail = timeout.prev;
+      }
+
+      timeout.prev = null;
+      timeout.next = null;
+      timeout.bucket = null;
+      return next;
+    }
+
+    void expireTimeouts() {
+      Timeout timeout = head;
+      while (timeout != null) {
+        if (timeout.remainingRounds > 0) {
+          timeout.remainingRounds--;
+          timeout = timeout.next;
+          continue;
+        }
+
+        Timeout next = remove(timeout);
+        timeout.expire();
+        timeout = next;
+      }
+    }
+  }
+
+  private final Context context;
+
+  private final long msTick;
+
+  private final long nsTick;
+
+  private final Bucket[] wheel;
+
+  private final int mask;
+
+  private final Queue<Timeout> newTimeouts = new ConcurrentLinkedQueue<>();
+
+  private final Queue<Timeout> cancelledTimeouts = new ConcurrentLinkedQueue<>();
+
+  private final long startTime = System.nanoTime();
+
+  // next tick to process
+  private long tick;
+
+  private long timerId = -1;
+
+  public TimingWheel(Context context) {
+    this(context, DEFAULT_MS_TICK, DEFAULT_WHEEL_SIZE);
+  }
+
+  public TimingWheel(Context context, long msTick, int wheelSize) {
+    this.context = context;
+    this.msTick = Math.max(msTick, 1);
+    this.nsTick = TimeUnit.MILLISECONDS.toNanos(this.msTick);
+
+    int size = Integer.highestOneBit(Math.max(wheelSize, 2) - 1) << 1;
+    this.wheel = new Bucket[size];
+    for (int idx = 0; idx < size; idx++) {
+      wheel[idx] = new Bucket();
+    }
+    this.mask = size - 1;
+  }
+
+  public void start() {
+    context.runOnContext(v -> {
+      timerId = context.owner().setPeriodic(msTick, this::onTick);
+    });
+  }
+
+  public void stop() {
+    context.runOnContext(v -> {
+      if (timerId != -1) {
+        context.owner().cancelTimer(timerId);
+        timerId = -1;
+      }
+    });
+  }
+
+  /**
+   * task will be executed in the context thread of this wheel
+   */
+  public Timeout newTimeout(long msDelay, Runnable task) {
+    Timeout timeout = new Timeout(this, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(msDelay), task);
+    newTimeouts.add(timeout);
+    return timeout;
+  }
+
+  private void onTick(Long timerId) {
+    long now = System.nanoTime();
+    // periodic timer maybe delayed by busy eventloop, so process all the elapsed ticks
+    // a tick is elapsed only after its end time, so that timeout never fire earlier than deadline
+    long lastTick = (now - startTime) / nsTick - 1;
+
+    removeCancelledTimeouts();
+    transferNewTimeouts();
+    for (; tick <= lastTick; tick++) {
+      wheel[(int) (tick & mask)].expireTimeouts();
+    }
+  }
+
+  private void removeCancelledTimeouts() {
+    for (; ; ) {
+      Timeout timeout = cancelledTimeouts.poll();
+      if (timeout == null) {
+        return;
+      }
+
+      // not transferred to bucket yet, will be dropped in transferNewTimeouts
+      if (timeout.bucket != null) {
+        timeout.bucket.remove(timeout);
+      }
+    }
+  }
+
+  private void transferNewTimeouts() {
+    for (; ; ) {
+      Timeout timeout = newTimeouts.poll();
+      if (timeout == null) {
+        return;
+      }
+
+      if (timeout.isCancelled()) {
+        continue;
+      }
+
+      long calculated = (timeout.deadline - startTime) / nsTick;
+      timeout.remainingRounds = (calculated - tick) / wheel.length;
+      // already expired timeout, put it to current tick
+      long ticks = Math.max(calculated, tick);
+      wheel[(int) (ticks & mask)].add(timeout);
+    }
+  }
+}